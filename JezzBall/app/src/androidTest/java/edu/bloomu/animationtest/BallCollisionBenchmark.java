@@ -0,0 +1,62 @@
+package edu.bloomu.animationtest;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import edu.bloomu.animationtest.engine.BoardLayout;
+import edu.bloomu.animationtest.engine.GameEngine;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures how many GameEngine ticks per second can be run with 10, 100 and 1000 balls
+ * in play, to show how the ball-vs-ball broad phase scales. Results are written to
+ * logcat under the "BENCHMARK" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BallCollisionBenchmark {
+
+    private static final int BOARD_WIDTH = 1080;
+    private static final int WARMUP_TICKS = 200;
+    private static final int MEASURED_TICKS = 2000;
+
+    @Test
+    public void ticksPerSecond() {
+        for (int count : new int[]{10, 100, 1000}) {
+            GameEngine engine = createEngine(count);
+            assertTrue(engine.getBalls().size() >= count * .9);
+
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                engine.tick();
+            }
+
+            long started = System.nanoTime();
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                engine.tick();
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            Log.i("BENCHMARK", engine.getBalls().size() + " balls: "
+                    + (int) (MEASURED_TICKS / seconds) + " ticks/sec");
+        }
+    }
+
+    /*
+     * Build an engine whose board is tall enough to hold the given number of balls
+     * without crowding, then fill it.
+     */
+    private GameEngine createEngine(int count) {
+        float dimension = BOARD_WIDTH / 30f;
+        int rows = Math.max(60, count / 2);
+        int height = (int) (rows * dimension) + GameView.OPTIONS_HEIGHT;
+
+        GameEngine engine = new GameEngine(new BoardLayout(BOARD_WIDTH, height,
+                GameView.OPTIONS_HEIGHT, GameView.ABSOLUTE_PADDING), false);
+        engine.addBalls(count - engine.getBalls().size());
+        return engine;
+    }
+}
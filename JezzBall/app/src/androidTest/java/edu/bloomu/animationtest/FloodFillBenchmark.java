@@ -0,0 +1,86 @@
+package edu.bloomu.animationtest;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import edu.bloomu.animationtest.engine.Board;
+import edu.bloomu.animationtest.engine.BoardLayout;
+import edu.bloomu.animationtest.engine.GameEngine;
+import edu.bloomu.animationtest.engine.RegionMap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares how many grid squares per second RegionMap.flood can fill against the
+ * recursive flood it replaced, by flooding the whole board from one corner over and
+ * over. Results are written to logcat under the "BENCHMARK" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FloodFillBenchmark {
+
+    private static final int BOARD_WIDTH = 1080;
+    private static final int BOARD_HEIGHT = 2200;
+    private static final int WARMUP_FILLS = 200;
+    private static final int MEASURED_FILLS = 2000;
+
+    @Test
+    public void cellsPerSecond() {
+        Board board = new GameEngine(new BoardLayout(BOARD_WIDTH, BOARD_HEIGHT,
+                GameView.OPTIONS_HEIGHT, GameView.ABSOLUTE_PADDING), false).getBoard();
+        RegionMap regions = new RegionMap(board);
+        int cells = board.getSize();
+        int fill = 1;
+
+        // the recursive flood worked on the old grid of labels
+        int[][] grid = new int[board.getRows()][board.getColumns()];
+        for (int[] row : grid) {
+            Arrays.fill(row, 1);
+        }
+
+        for (int i = 0; i < WARMUP_FILLS; i++) {
+            regions.flood(0, 0, ++fill);
+            recursiveFlood(grid, 0, 0, ++fill);
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED_FILLS; i++) {
+            regions.flood(0, 0, ++fill);
+        }
+        double scanline = (System.nanoTime() - started) / 1e9;
+        assertEquals(fill, regions.getRegion(cells - 1));
+
+        started = System.nanoTime();
+        for (int i = 0; i < MEASURED_FILLS; i++) {
+            recursiveFlood(grid, 0, 0, ++fill);
+        }
+        double recursive = (System.nanoTime() - started) / 1e9;
+        assertEquals(fill, grid[grid.length - 1][grid[0].length - 1]);
+
+        Log.i("BENCHMARK", cells + " square board, scanline: "
+                + (long) (cells * (double) MEASURED_FILLS / scanline) + " cells/sec");
+        Log.i("BENCHMARK", cells + " square board, recursive: "
+                + (long) (cells * (double) MEASURED_FILLS / recursive) + " cells/sec");
+    }
+
+    /*
+     * The recursive flood the GameEngine used to use, kept here to measure against.
+     */
+    private void recursiveFlood(int[][] grid, int y, int x, int fill) {
+        if (y >= grid.length || y < 0 || x >= grid[0].length || x < 0) {
+            return;
+        }
+        if (grid[y][x] != -1 && grid[y][x] != fill && grid[y][x] != 0) {
+            grid[y][x] = fill;
+            recursiveFlood(grid, y + 1, x, fill);
+            recursiveFlood(grid, y - 1, x, fill);
+            recursiveFlood(grid, y, x + 1, fill);
+            recursiveFlood(grid, y, x - 1, fill);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package edu.bloomu.animationtest;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import edu.bloomu.animationtest.engine.BoardLayout;
+import edu.bloomu.animationtest.engine.EventQueue;
+import edu.bloomu.animationtest.engine.FrameBuffer;
+import edu.bloomu.animationtest.engine.GameEngine;
+import edu.bloomu.animationtest.engine.Gesture;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the game with allocation counting turned on for the test thread, and fails if
+ * anything at all was allocated once it has warmed up. Garbage created every tick or
+ * frame turns into GC pauses, which show up as frame hitches on low-end devices.
+ * <p>
+ * The engine is checked with a crowd of balls bouncing off each other, and again
+ * through a level played to the end, with walls placed from touches closing off
+ * region after region. The GameManager is checked drawing frames onto a Bitmap while
+ * walls are drawn with touch events, the way GameView drives it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TickAllocationTest {
+
+    private static final int WARMUP_TICKS = 500;
+    private static final int MEASURED_TICKS = 10000;
+
+    private static final long SEED = 1;
+    // each game grows the Replay, so play enough of them that it has room left for
+    // the measured one
+    private static final int WARMUP_GAMES = 8;
+    private static final int MAX_GAME_TICKS = 3000;
+    private static final int TICKS_BETWEEN_WALLS = 900;
+
+    private static final int WARMUP_FRAMES = 600;
+    private static final int MEASURED_FRAMES = 2000;
+    private static final int FRAMES_BETWEEN_WALLS = 600;
+    // keeps the score clear of the point the next level starts loading
+    private static final int MAX_WALLS_DRAWN = 3;
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 2200;
+    private static final int STRIP = 3; // rows of squares each wall cuts off
+
+    // rows of the board still open, walls are placed from both ends inwards
+    private int top;
+    private int bottom;
+    private int placed;
+
+    private int revealed;
+    private final EventQueue.Listener counter = new EventQueue.Listener() {
+        @Override
+        public void onEvent(int kind, int value) {
+            if (kind == EventQueue.REGION_REVEALED) {
+                revealed++;
+            }
+        }
+    };
+
+    @Test
+    @SuppressWarnings("deprecation") // still the only per-thread allocation counter
+    public void steadyStateTickDoesNotAllocate() {
+        GameEngine engine = new GameEngine(new BoardLayout(WIDTH, HEIGHT,
+                GameView.OPTIONS_HEIGHT, GameView.ABSOLUTE_PADDING), false);
+        engine.addBalls(20);
+
+        // let scratch buffers grow to their working size
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            engine.tick();
+        }
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            engine.tick();
+        }
+        int allocations = Debug.getThreadAllocCount();
+        int bytes = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+
+        assertEquals("allocated " + bytes + " bytes over " + MEASURED_TICKS + " ticks",
+                0, allocations);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void placingWallsDoesNotAllocate() {
+        GameEngine engine = new GameEngine(new BoardLayout(WIDTH, HEIGHT,
+                GameView.OPTIONS_HEIGHT, GameView.ABSOLUTE_PADDING), false, SEED);
+        Gesture gesture = new Gesture();
+        FrameBuffer frames = new FrameBuffer();
+
+        for (int game = 0; game < WARMUP_GAMES; game++) {
+            engine.newGame();
+            play(engine, gesture, frames, MAX_GAME_TICKS, 1);
+        }
+        engine.newGame();
+        revealed = 0;
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        play(engine, gesture, frames, MEASURED_TICKS, TICKS_BETWEEN_WALLS);
+        int allocations = Debug.getThreadAllocCount();
+        int bytes = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+
+        assertTrue("only " + revealed + " regions revealed", revealed >= 4);
+        assertEquals("allocated " + bytes + " bytes over " + MEASURED_TICKS + " ticks",
+                0, allocations);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void drawingFramesDoesNotAllocate() {
+        final Context context =
+                InstrumentationRegistry.getInstrumentation().getTargetContext();
+        final GameView[] view = new GameView[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                view[0] = new GameView(context, null, context.getSharedPreferences(
+                        "TickAllocationTest", Context.MODE_PRIVATE));
+            }
+        });
+        GameView gameView = view[0];
+        GameManager manager = new GameManager(context, WIDTH, HEIGHT, gameView);
+        GameEngine engine = manager.getEngine();
+        engine.newGame(false); // whatever game was saved on the device
+        SphereScreen sphereScreen = new SphereScreen(context, 0, WIDTH, 0, HEIGHT, 1);
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT,
+                Bitmap.Config.ARGB_8888));
+
+        long now = SystemClock.uptimeMillis();
+        MotionEvent move = MotionEvent.obtain(now, now, MotionEvent.ACTION_MOVE, 0, 0, 0);
+        MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, 0, 0, 0);
+
+        // tap start on the title screen. That resumes the game threads, which aren't
+        // wanted here, so stop them again and draw from this thread instead.
+        float startX = WIDTH * .8f;
+        float startY = HEIGHT * .25f + 2 * (HEIGHT * .1f + 30) + HEIGHT * .05f;
+        manager.trackInputEvent(up, startX, startY);
+        gameView.pause();
+        assertEquals(GameState.GAME_ACTIVE, manager.getGameState());
+
+        top = 0;
+        bottom = engine.getBoard().getRows() - 1;
+        placed = 0;
+        drawFrames(manager, engine, sphereScreen, canvas, move, up, WARMUP_FRAMES);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        drawFrames(manager, engine, sphereScreen, canvas, move, up, MEASURED_FRAMES);
+        int allocations = Debug.getThreadAllocCount();
+        int bytes = Debug.getThreadAllocSize();
+        Debug.stopAllocCounting();
+        move.recycle();
+        up.recycle();
+
+        assertEquals(GameState.GAME_ACTIVE, manager.getGameState());
+        assertEquals("allocated " + bytes + " bytes over " + MEASURED_FRAMES + " frames",
+                0, allocations);
+    }
+
+    /*
+        Tick the engine the given number of times, placing a pair of walls every so
+        many ticks if there are none in play. Publishes a Frame and drains the events
+        after every tick, like GameManager does.
+     */
+    private void play(GameEngine engine, Gesture gesture, FrameBuffer frames, int ticks,
+                      int every) {
+        top = 0;
+        bottom = engine.getBoard().getRows() - 1;
+        for (int i = 0; i < ticks; i++) {
+            if (i % every == 0 && engine.getWalls().isEmpty() && !engine.isGameOver()
+                    && bottom - top > 2 * STRIP + 1) {
+                float x = WIDTH / 2f;
+                float y = nextWallY(engine);
+                gesture.reset();
+                for (int k = 0; k <= GameEngine.WALL_TOUCH_INTENTION; k++) {
+                    gesture.add(x + k, y);
+                }
+                engine.interpretTouchEvent(gesture);
+            }
+            engine.tick();
+            engine.writeFrame(frames.getBack());
+            frames.publish();
+            engine.getEvents().drain(counter);
+        }
+    }
+
+    /*
+        Draw the given number of frames the way GameView does, one tick apart, with
+        the sphere screen drawn over each. Now and then a finger drags out a wall, one
+        touch event a frame, so the helper line is drawn as well.
+     */
+    private void drawFrames(GameManager manager, GameEngine engine,
+                            SphereScreen sphereScreen, Canvas canvas, MotionEvent move,
+                            MotionEvent up, int frames) {
+        int sample = -1; // how far into dragging out a wall, or -1 if not
+        float x = 0;
+        float y = 0;
+        for (int i = 0; i < frames; i++) {
+            if (sample < 0 && i % FRAMES_BETWEEN_WALLS == 0
+                    && engine.getWalls().isEmpty() && placed < MAX_WALLS_DRAWN) {
+                sample = 0;
+                x = WIDTH / 2f;
+                y = nextWallY(engine);
+            }
+            if (sample >= 0) {
+                boolean last = sample == GameEngine.WALL_TOUCH_INTENTION;
+                manager.trackInputEvent(last ? up : move, x + sample, y);
+                sample = last ? -1 : sample + 1;
+            }
+
+            manager.update();
+            manager.prepareFrame(manager.getGameState(), false);
+            manager.render(canvas);
+            sphereScreen.render(canvas);
+        }
+    }
+
+    /*
+        Return the y coordinate of the middle of the next row to place a wall along,
+        STRIP rows in from whichever end of the open rows is further from the ball, so
+        the rows cut off are empty and get revealed
+     */
+    private float nextWallY(GameEngine engine) {
+        float dimension = engine.getDimension();
+        int boardTop = engine.getLayout().getTop();
+        int ballRow = (int) ((engine.getBalls().get(0).getY() - boardTop) / dimension);
+        int row;
+        if (ballRow > (top + bottom) / 2) {
+            row = top + STRIP;
+            top = row + 1;
+        } else {
+            row = bottom - STRIP;
+            bottom = row - 1;
+        }
+        placed++;
+        return boardTop + (row + .5f) * dimension;
+    }
+}
@@ -0,0 +1,76 @@
+package edu.bloomu.animationtest;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import java.util.Locale;
+
+/**
+ * Keeps the scaled bitmaps generateBitMap() has made, so asking for the same drawable
+ * at the same size again, like every time a Screen is opened, doesn't decode and
+ * scale it again. The bitmaps are kept up to a budget of bytes, and the ones used
+ * least recently are let go first once it's full.
+ * <p>
+ * Bitmaps handed out are shared by everyone who asks for the same one, so nothing
+ * should draw into them or recycle them. One that's let go stays around as long as
+ * something still uses it.
+ */
+
+public class BitmapCache {
+
+    private final LruCache<Long, Bitmap> bitmaps;
+
+    /**
+     * Make a cache that holds up to the given number of bytes of bitmaps
+     */
+    public BitmapCache(int maxBytes) {
+        bitmaps = new LruCache<Long, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Return the bitmap of the given drawable at the given size, or null if it hasn't
+     * been made or has been let go since
+     */
+    public Bitmap get(int id, int width, int height) {
+        return bitmaps.get(keyOf(id, width, height));
+    }
+
+    /**
+     * Keep a bitmap of the given drawable at the given size
+     */
+    public void put(int id, int width, int height, Bitmap bitmap) {
+        bitmaps.put(keyOf(id, width, height), bitmap);
+    }
+
+    /**
+     * Return the number of bytes of bitmaps kept
+     */
+    public int getBytes() {
+        return bitmaps.size();
+    }
+
+    /**
+     * Return a line describing how well the cache is doing, for debugging
+     */
+    public String getStats() {
+        int hits = bitmaps.hitCount();
+        int misses = bitmaps.missCount();
+        return String.format(Locale.US,
+                "bitmaps: %d/%d KB, %d hits, %d misses (%.0f%% hit), %d evictions",
+                bitmaps.size() / 1024, bitmaps.maxSize() / 1024, hits, misses,
+                hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses),
+                bitmaps.evictionCount());
+    }
+
+    /*
+     * Pack a drawable and size into one key. Sizes are screen sized, well under 2^16.
+     */
+    private static Long keyOf(int id, int width, int height) {
+        return ((long) id << 32) | ((long) (width & 0xffff) << 16) | (height & 0xffff);
+    }
+}
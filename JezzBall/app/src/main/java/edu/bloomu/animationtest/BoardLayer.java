@@ -0,0 +1,142 @@
+package edu.bloomu.animationtest;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import edu.bloomu.animationtest.engine.Board;
+
+/**
+ * The background with the grid drawn over it, kept offscreen so a frame can copy it
+ * in with a single drawBitmap instead of drawing every square again. The grid only
+ * changes when a wall stops or a region is revealed, and then only the squares that
+ * changed are drawn again: the background is put back under each one before its new
+ * brick goes on top.
+ * <p>
+ * Everything is drawn again from scratch when the background changes, such as on a
+ * new level. Either way the squares drawn are added to a DirtyRegion, so only they
+ * need to go to the screen.
+ */
+
+public class BoardLayer {
+
+    private final Bitmap layer;
+    private final Canvas canvas;
+    private final float dimension;
+    private final float top;
+    private final Bitmap fillBitmap;
+    private final Bitmap brokenBitmap;
+
+    // the state of every square as it was last drawn into the layer
+    private byte[] drawn = new byte[0];
+    private int drawnVersion;
+    private Bitmap drawnBackground;
+
+    /**
+     * Make a layer of the given size for a grid of squares of the given dimension,
+     * starting top pixels down the screen. Open squares are covered with
+     * fillBitmap and walls with brokenBitmap.
+     */
+    public BoardLayer(int width, int height, float dimension, float top,
+                      Bitmap fillBitmap, Bitmap brokenBitmap) {
+        layer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(layer);
+        this.dimension = dimension;
+        this.top = top;
+        this.fillBitmap = fillBitmap;
+        this.brokenBitmap = brokenBitmap;
+    }
+
+    /**
+     * Bring the layer up to date with the given background and board, where version
+     * is the version of the engine's board the copy was made from, and add what was
+     * drawn to the DirtyRegion. Return the number of squares drawn, which is 0 if
+     * nothing has changed.
+     */
+    public int update(Bitmap background, Board board, int version, DirtyRegion region) {
+        if (background != drawnBackground || drawn.length != board.getSize()) {
+            drawAll(background, board);
+            region.invalidate();
+            drawnBackground = background;
+            drawnVersion = version;
+            return board.getSize();
+        }
+        if (version == drawnVersion) {
+            return 0;
+        }
+        drawnVersion = version;
+
+        int changed = 0;
+        int square = 0;
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int column = 0; column < board.getColumns(); column++, square++) {
+                byte state = board.get(square);
+                if (state != drawn[square]) {
+                    drawSquare(background, row, column, state);
+                    region.addChanged(column * dimension, row * dimension + top,
+                            (column + 1) * dimension, (row + 1) * dimension + top);
+                    drawn[square] = state;
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Return the layer, to be drawn at the top left of the screen
+     */
+    public Bitmap getBitmap() {
+        return layer;
+    }
+
+    /*
+     * Draw the whole background, and every square that isn't revealed over it
+     */
+    private void drawAll(Bitmap background, Board board) {
+        if (drawn.length != board.getSize()) {
+            drawn = new byte[board.getSize()];
+        }
+        canvas.drawBitmap(background, 0, 0, GameView.FAILED_BITMAP_PAINT);
+        int square = 0;
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int column = 0; column < board.getColumns(); column++, square++) {
+                byte state = board.get(square);
+                Bitmap brick = brickFor(state);
+                if (brick != null) {
+                    canvas.drawBitmap(brick, column * dimension, row * dimension + top,
+                            GameView.FAILED_BITMAP_PAINT);
+                }
+                drawn[square] = state;
+            }
+        }
+    }
+
+    /*
+     * Put the background back under one square, then draw its brick if it has one
+     */
+    private void drawSquare(Bitmap background, int row, int column, byte state) {
+        float left = column * dimension;
+        float squareTop = row * dimension + top;
+        canvas.save();
+        canvas.clipRect(left, squareTop, left + dimension, squareTop + dimension);
+        canvas.drawBitmap(background, 0, 0, GameView.FAILED_BITMAP_PAINT);
+        canvas.restore();
+        Bitmap brick = brickFor(state);
+        if (brick != null) {
+            canvas.drawBitmap(brick, left, squareTop, GameView.FAILED_BITMAP_PAINT);
+        }
+    }
+
+    /*
+     * Return the bitmap drawn over a square in the given state, or null if the
+     * background shows through
+     */
+    private Bitmap brickFor(byte state) {
+        if (state == Board.WALL) { // draw broken walls where needed
+            return brokenBitmap;
+        } else if (state == Board.OPEN) { // "locked" portion of the game
+            return fillBitmap;
+        }
+        return null;
+    }
+}
@@ -3,7 +3,7 @@ package edu.bloomu.animationtest;
 import android.graphics.Bitmap;
 import android.graphics.Matrix;
 
-import java.util.ArrayList;
+import edu.bloomu.animationtest.engine.Gesture;
 
 /**
  * Encapsulates the behaviour needed for a Button in the application. Tracks left,
@@ -27,14 +27,11 @@ public class Button {
     }
 
     /**
-     * Return true if both the first and last elements in the list of touches are
-     * within the button.
+     * Return true if both the first and last points of the gesture are within the
+     * button.
      */
-    public boolean clickedIn(ArrayList<float[]> touches) {
-        float[] first = touches.get(0);
-        float[] last = touches.get(touches.size() - 1);
-        return first[0] > left && first[0] < right && first[1] < bottom && first[1] > top
-                && last[0] > left && last[0] < right && last[1] < bottom && last[1] > top;
+    public boolean clickedIn(Gesture touches) {
+        return touches.isWithin(left, top, right, bottom);
     }
 
     /**
@@ -0,0 +1,70 @@
+package edu.bloomu.animationtest;
+
+import android.graphics.Rect;
+
+/**
+ * Works out which part of the screen a frame needs to draw, so the render thread can
+ * lock and draw just that part of the surface. The surface keeps whatever was posted
+ * last outside the part that's locked.
+ * <p>
+ * Things that move, like balls and growing walls, are added with addMoving() every
+ * frame they're drawn. The area they covered on the frame before is added along with
+ * them, so wherever they were is drawn over. Things that only change now and then,
+ * like a square of the grid or the heading, are added with addChanged() on the frame
+ * they change. Anything else that changes the screen should call invalidate(), and
+ * the whole screen is drawn.
+ * <p>
+ * The surface only takes a single rectangle, so that's what all of it comes to.
+ */
+
+public class DirtyRegion {
+
+    private final Rect dirty = new Rect();
+    // everything moving drawn on this frame and the one before
+    private final Rect moving = new Rect();
+    private final Rect moved = new Rect();
+    private final Rect result = new Rect();
+    private boolean everything = true;
+
+    /**
+     * Add something that's drawn this frame and may be somewhere else next frame
+     */
+    public void addMoving(float left, float top, float right, float bottom) {
+        moving.union((int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(right), (int) Math.ceil(bottom));
+    }
+
+    /**
+     * Add an area that looks different this frame than it did last frame
+     */
+    public void addChanged(float left, float top, float right, float bottom) {
+        dirty.union((int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(right), (int) Math.ceil(bottom));
+    }
+
+    /**
+     * Make the next frame draw the whole screen
+     */
+    public void invalidate() {
+        everything = true;
+    }
+
+    /**
+     * Return the part of the screen this frame needs to draw, or null if it's the
+     * whole screen, and start on the next frame. The rectangle is reused, and is
+     * empty if nothing has changed.
+     */
+    public Rect finish() {
+        dirty.union(moving);
+        dirty.union(moved);
+        moved.set(moving);
+        moving.setEmpty();
+        result.set(dirty);
+        dirty.setEmpty();
+        if (everything) {
+            everything = false;
+            return null;
+        }
+        return result;
+    }
+}
@@ -5,6 +5,8 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.util.Log;
 
+import edu.bloomu.animationtest.engine.Gesture;
+
 import java.util.ArrayList;
 
 /**
@@ -19,55 +21,41 @@ import java.util.ArrayList;
 public class GalleryScreen extends Screen {
 
     private int unlocked;
+    private int scaled; // unlocked images already scaled into their buttons
     private int current; // current image
-    private ArrayList<Button> imageButtons;
-    private Button doneButton;
+    private final ArrayList<Button> imageButtons;
+    private final Button doneButton;
 
     private final Bitmap bg; // frame for the images
     private final ArrayList<Integer> backgrounds; // all backgrounds
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int imageTop;
+    private final int horPadding;
 
     public GalleryScreen(Context context, int left, int right, int top, int bottom,
                          int unlocked) {
         super(context, left, right, top, bottom);
-        this.unlocked = unlocked;
 
         current = 0;
         backgrounds = GameManager.getBackgroundDrawables();
 
         bg = generateBitMap(context, R.drawable.options_bg, width, height);
-        updateImageButtons(unlocked);
-    }
 
-    /**
-     * Create Buttons containing unlocked images of number equal to the current max
-     * level reached through gameplay. Create buttons equal to the remaining number
-     * containing a default image overlaid with text informing the user to play more to
-     * unlock more images.
-     */
-    public void updateImageButtons(int maxLevel) {
-        unlocked = maxLevel - 1;
-        imageButtons = new ArrayList<>();
         // messy size calculations
-        int imageWidth = (int) (width * .8);
-        int imageHeight = (int) (height * .7);
-        int horPadding = (int) (width - imageWidth) / 2;
+        imageWidth = (int) (width * .8);
+        imageHeight = (int) (height * .7);
+        horPadding = (int) (width - imageWidth) / 2;
         int vertPadding = (int) ((height - imageHeight) * .2);
+        imageTop = top + vertPadding;
 
+        // every image starts out as the default image, and is swapped for the real one
+        // once it's unlocked
         Bitmap locked = generateBitMap(context, R.drawable.title_reveal_revealmore,
                 imageWidth, imageHeight);
-
-        Button button;
-
-        // add unlocked image to button if possible, if not add default image to button
+        imageButtons = new ArrayList<>();
         for (int i = 0; i < backgrounds.size(); i++) {
-            if (i < unlocked) {
-                Bitmap b = generateBitMap(context, backgrounds.get(i), imageWidth, imageHeight);
-                button = new Button(horPadding,
-                        top + vertPadding, b);
-            } else {
-                button = new Button(horPadding, top + vertPadding, locked);
-            }
-            imageButtons.add(button);
+            imageButtons.add(new Button(horPadding, imageTop, locked));
         }
 
         // add button to return to the main menu
@@ -76,6 +64,26 @@ public class GalleryScreen extends Screen {
                 generateBitMap(context,
                         R.drawable.title_reveal_btn_done, (int) (width * .3),
                         (int) (height * .1)));
+
+        updateImageButtons(unlocked);
+    }
+
+    /**
+     * Show unlocked images for every level below the current max level reached through
+     * gameplay. The rest keep a default image overlaid with text informing the user to
+     * play more to unlock more images. Only images unlocked since the last call are
+     * scaled, so opening the gallery again costs nothing.
+     */
+    public void updateImageButtons(int maxLevel) {
+        unlocked = maxLevel - 1;
+
+        // the gallery holds on to all of these at once, more than the BitmapCache has
+        // room for, so they're kept here rather than in it
+        for (; scaled < Math.min(unlocked, backgrounds.size()); scaled++) {
+            Bitmap b = scaleBitMap(context, backgrounds.get(scaled), imageWidth,
+                    imageHeight);
+            imageButtons.set(scaled, new Button(horPadding, imageTop, b));
+        }
     }
 
     /**
@@ -83,20 +91,19 @@ public class GalleryScreen extends Screen {
      * an updated gamestate to the TitleScreen depending on user input.
      */
     @Override
-    public GameState interpretTouch(ArrayList<float[]> touches,
+    public GameState interpretTouch(Gesture touches,
                                     GameState currentGameState) {
         if (doneButton.clickedIn(touches)) { // back to main menu
             return GameState.MENU_SCREEN;
         } else if (imageButtons.get(current).clickedIn(touches)) {
             // did user try to swipe?
-            float[] last = touches.get(touches.size() - 1);
-            float[] first = touches.get(0);
+            float swipe = touches.getLastX() - touches.getFirstX();
             int swipeSize = 100;
             // swipe left, increment image Button
-            if (first[0] - last[0] > swipeSize) {
+            if (-swipe > swipeSize) {
                 current = Math.min(++current, backgrounds.size() - 1);
                 // swipe right, decrement image Button
-            } else if (last[0] - first[0] > swipeSize) {
+            } else if (swipe > swipeSize) {
                 current = Math.max(--current, 0);
             }
             // remain in GameState.GALLERY_SCREEN until user clicks in doneButton
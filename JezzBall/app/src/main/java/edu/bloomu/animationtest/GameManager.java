@@ -4,7 +4,9 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.graphics.drawable.BitmapDrawable;
 import android.media.AudioAttributes;
@@ -15,8 +17,32 @@ import android.view.MotionEvent;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.core.content.res.ResourcesCompat;
 
+import edu.bloomu.animationtest.engine.BoardLayout;
+import edu.bloomu.animationtest.engine.EventQueue;
+import edu.bloomu.animationtest.engine.Frame;
+import edu.bloomu.animationtest.engine.FrameBuffer;
+import edu.bloomu.animationtest.engine.GameEngine;
+import edu.bloomu.animationtest.engine.Gesture;
+import edu.bloomu.animationtest.engine.Hint;
+import edu.bloomu.animationtest.engine.HintSolver;
+import edu.bloomu.animationtest.engine.PreparedLevel;
+import edu.bloomu.animationtest.engine.Replay;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -33,7 +59,17 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 
 public class GameManager {
-    private GameState gameState;
+    // the last session that ended in a game over, in the app's files directory
+    private static final String REPLAY_FILE = "last_session.replay";
+    // the game in progress, saved whenever the app goes into the background
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    // how long the hint solver gets to think, about the time a player takes to look
+    private static final long HINT_BUDGET_NANOS = 250_000_000L;
+    // once the score gets this far, start setting up the next level
+    private static final int PREFETCH_PERCENTAGE = 60;
+
+    // changed by the simulation thread and the UI thread, read by the render thread
+    private volatile GameState gameState;
 
     private final Bitmap brickFillBitmap;
     private final Bitmap brickWallStoppedBitmap;
@@ -44,11 +80,36 @@ public class GameManager {
     private Bitmap ballBitmap;
     private Bitmap backgroundBitmap;
 
+    // the background and grid, and the heading, are drawn offscreen and only drawn
+    // again when they change. Each frame copies them in and draws the rest on top.
+    private final BoardLayer boardLayer;
+    private final Bitmap headingLayer;
+    private final Canvas headingCanvas;
+    // only the part of the screen that changed is drawn each frame
+    private final DirtyRegion dirtyRegion = new DirtyRegion();
+
+    // what prepareFrame() took for render() to draw, so the two always agree
+    private Frame frame;
+    private float alpha;
+    private GameState frameState;
+    private Hint frameHint;
+    private boolean frameTutorial;
+    private boolean guideShown;
+    private final float[] guideLine = new float[4];
+
     private static ArrayList<Integer> backgrounds;
+    // every bitmap generateBitMap() makes, kept within an eighth of the heap
+    private static final BitmapCache BITMAP_CACHE =
+            new BitmapCache((int) (Runtime.getRuntime().maxMemory() / 8));
 
     private final Paint targetPaint;
+    private final Paint hintPaint;
+    // reused for every wall and ball drawn, set up from the engine's state each frame
+    private final Paint wallPaint = new Paint();
+    private final Matrix ballMatrix = new Matrix();
     private final Button nextLevelButton;
     private final Button pauseButton;
+    private final Button hintButton;
     private final Button menuButton;
 
     private final TitleScreen titleScreen;
@@ -58,17 +119,44 @@ public class GameManager {
     private final GameView gameView;
 
     private final GameEngine gameEngine;
+    private final BoardLayout layout;
+    // writes snapshots and replays to disk, so nothing that calls for them waits on it
+    private final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor();
+    // hints are worked out on their own thread, which waits on the solver's pool
+    private final ExecutorService hintRequests = Executors.newSingleThreadExecutor();
+    private final HintSolver hintSolver = new HintSolver();
+    // the last hint found, shown until the player places walls. Set from hintRequests.
+    private volatile Hint hint;
+    private volatile boolean hintPending;
+    // the next level's balls and background are set up on here before they're needed
+    private final ExecutorService levelPrefetch = Executors.newSingleThreadExecutor();
+    // guarded by levelPrefetch
+    private Future<PreparedLevel> nextLevel;
+    private Future<Bitmap> nextBackground;
     private int maxLevel;
-    private int lives;
-    private final int[][] gridRepresentation;
+    // the simulation thread publishes a Frame here after every tick, and rendering
+    // only ever reads the latest one
+    private final FrameBuffer frames = new FrameBuffer();
+    // the same for the UI thread, which places walls against the latest board it's
+    // been handed rather than the one the simulation thread is changing
+    private final FrameBuffer touchFrames = new FrameBuffer();
+    private final static float TICK_NANOS = GameEngine.TICK_SECONDS * 1e9f;
     private final float gridDimension;
     private final int displayWidth;
     private final int displayHeight;
-    private final ArrayList<float[]> touchEventHistory = new ArrayList<>();
+    // the touch in progress, reused for every touch so a long drag allocates nothing
+    private final Gesture gesture = new Gesture();
 
     protected static int TEXT_COLOR = Color.parseColor("#4f4c4c");
     protected static Typeface TYPEFACE;
     private final Paint textStyle;
+    // the heading is only drawn again when the numbers change
+    private final char[] scoreText = new char[32];
+    private final char[] livesText = new char[32];
+    private int scoreTextLength;
+    private int livesTextLength;
+    private int shownScore = -1;
+    private int shownLives = -1;
 
     private boolean isSoundOn;
     private boolean isGuideEnabled;
@@ -80,6 +168,33 @@ public class GameManager {
     private final int lifeLostSound;
     private final int levelWonSound;
 
+    // plays the sounds and moves the GameState on for whatever the engine reports
+    private final EventQueue.Listener engineListener = new EventQueue.Listener() {
+        @Override
+        public void onEvent(int kind, int value) {
+            switch (kind) {
+                case EventQueue.LIFE_LOST:
+                    soundPool.play(lifeLostSound, 1, 1, 0, 0, 1);
+                    break;
+                case EventQueue.REGION_REVEALED:
+                    if (gameEngine.getScoreAsPercentage() >= PREFETCH_PERCENTAGE) {
+                        prefetchNextLevel();
+                    }
+                    break;
+                case EventQueue.LEVEL_WON: // either way we'll need to pause in GameView
+                    soundPool.play(levelWonSound, 1, 1, 0, 0, (float) 1.3);
+                    prefetchNextLevel(); // if it hasn't been already
+                    gameState = GameState.LEVEL_WON;
+                    break;
+                case EventQueue.GAME_OVER:
+                    soundPool.play(gameOverSound, 1, 1, 0, 0, 1);
+                    gameState = GameState.GAME_OVER;
+                    saveReplay();
+                    break;
+            }
+        }
+    };
+
 
     public GameManager(Context context, int displayWidth, int displayHeight,
                        GameView gameView) {
@@ -111,6 +226,9 @@ public class GameManager {
         targetPaint = new Paint();
         targetPaint.setColor(Color.WHITE);
         targetPaint.setStrokeWidth(20);
+        hintPaint = new Paint();
+        hintPaint.setColor(Color.YELLOW);
+        hintPaint.setStrokeWidth(20);
 
         TYPEFACE = ResourcesCompat.getFont(context, R.font.hotsweat);
         textStyle = new Paint();
@@ -118,9 +236,19 @@ public class GameManager {
         textStyle.setTextSize(50);
         textStyle.setTypeface(TYPEFACE);
 
-        gameEngine = new GameEngine(displayWidth, displayHeight);
+        // carry on the game from last time if there is one, otherwise start fresh
+        layout = new BoardLayout(displayWidth, displayHeight,
+                GameView.OPTIONS_HEIGHT, GameView.ABSOLUTE_PADDING);
+        GameEngine restored = loadSnapshot(layout);
+        gameEngine = restored != null ? restored
+                : new GameEngine(layout, gameView.isChaosMode());
+        if (gameEngine.isBeatLevel()) {
+            // saved on the LEVEL_WON screen, so carry on from the level they earned
+            gameEngine.nextLevel();
+            maxLevel = Math.max(gameEngine.getLevel(), maxLevel);
+            gameView.setMaxLevel(maxLevel);
+        }
         gameState = GameState.MENU_SCREEN;
-        gridRepresentation = gameEngine.getGrid();
         gridDimension = gameEngine.getDimension();
         backgrounds = loadBackgrounds();
 
@@ -128,7 +256,8 @@ public class GameManager {
                 maxLevel, isTutorialEnabled);
         pauseScreen = new PauseScreen(context, (int) (displayWidth * .2),
                 (int) (displayWidth * .8), (int) (displayHeight * .35),
-                (int) (displayHeight * .7), isSoundOn, isGuideEnabled, isTutorialEnabled);
+                (int) (displayHeight * .7), isSoundOn, isGuideEnabled, isTutorialEnabled,
+                gameView.isChaosMode());
 
         /*
             Load all final Bitmaps and Buttons needed. Although messy, this is done in
@@ -165,24 +294,44 @@ public class GameManager {
         pauseButton = new Button((int) (displayWidth * .8),
                 (int) (GameView.OPTIONS_HEIGHT * .25), pauseBitmap);
 
+        // there's no artwork for the hint button, so it's the word in the heading's font
+        Bitmap hintBitmap = Bitmap.createBitmap((int) (displayWidth * .2),
+                (int) (GameView.OPTIONS_HEIGHT * .5), Bitmap.Config.ARGB_8888);
+        new Canvas(hintBitmap).drawText("hint", 0, hintBitmap.getHeight() * .7f,
+                textStyle);
+        hintButton = new Button((int) (displayWidth * .55),
+                (int) (GameView.OPTIONS_HEIGHT * .25), hintBitmap);
 
         gameplay_options_buttons = generateBitMap(context,
                 R.drawable.game_header_bg, (int) displayWidth, GameView.OPTIONS_HEIGHT);
+
+        boardLayer = new BoardLayer(displayWidth, displayHeight, gridDimension,
+                GameView.OPTIONS_HEIGHT + GameView.ABSOLUTE_PADDING, brickFillBitmap,
+                brickWallStoppedBitmap);
+        headingLayer = Bitmap.createBitmap(displayWidth, GameView.OPTIONS_HEIGHT,
+                Bitmap.Config.ARGB_8888);
+        headingCanvas = new Canvas(headingLayer);
     }
 
     /**
-     * Receives a MotionEvent from GameView and adds them to the TouchEventHistory
-     * until the user stops drawing, at which point the ArrayList of "touches" is
-     * passed to the appropriate Screen to handle based on the current GameState, (or
-     * handled in house if displaying gameplay).
+     * Receives a MotionEvent from GameView and adds its points to the Gesture until
+     * the user stops drawing, at which point the Gesture is passed to the appropriate
+     * Screen to handle based on the current GameState, (or handled in house if
+     * displaying gameplay).
      */
     public void trackInputEvent(MotionEvent event, float x, float y) {
 
-        touchEventHistory.add(new float[]{x, y});
+        // moves are batched up between frames, the points in between are kept as
+        // history on the event. They follow the finger, but only the event itself
+        // counts towards WALL_TOUCH_INTENTION.
+        for (int i = 0; i < event.getHistorySize(); i++) {
+            gesture.addHistorical(event.getHistoricalX(i), event.getHistoricalY(i));
+        }
+        gesture.add(x, y);
 
         if (event.getAction() == MotionEvent.ACTION_UP) {
-            processInputEvent(touchEventHistory);
-            touchEventHistory.clear();
+            processInputEvent(gesture);
+            gesture.reset();
         }
     }
 
@@ -191,7 +340,7 @@ public class GameManager {
      * pass to appropriate Screen based on current GameState. Update GameState
      * accordingly.
      */
-    public void processInputEvent(ArrayList<float[]> touches) {
+    public void processInputEvent(Gesture touches) {
 
         switch (gameState) {
             case GAME_ACTIVE:
@@ -199,9 +348,12 @@ public class GameManager {
                 if (pauseButton.clickedIn(touches)) {
                     gameState = GameState.PAUSED;
                     return;
+                } else if (hintButton.clickedIn(touches)) {
+                    requestHint();
                 } else { // game is active, and they didn't click for pause, send to
                     // engine
-                    gameEngine.interpretTouchEvent(touchEventHistory);
+                    hint = null;
+                    gameEngine.interpretTouchEvent(touches, touchFrames.getLatest());
                 }
                 break;
 
@@ -241,6 +393,7 @@ public class GameManager {
                     gameView.setTutorialEnabled(isTutorialEnabled);
                     gameView.setGuideEnabled(isGuideEnabled);
                     gameView.setSoundOn(isSoundOn);
+                    gameView.setChaosMode(pauseScreen.isChaosMode());
                 }
                 if (gameState == GameState.MENU_SCREEN) {
                     // update menu with latest information from gameplay
@@ -256,19 +409,56 @@ public class GameManager {
                 if (menuButton.clickedIn(touches)) {
                     gameState = GameState.MENU_SCREEN;
                     titleScreen.updateMaxLevel(maxLevel);
-                    gameEngine.newGame();
+                    hint = null;
+                    discardNextLevel();
+                    gameEngine.newGame(gameView.isChaosMode());
                     gameView.resume();
                 }
         }
     }
 
     /**
-     * Called by GameView every tick that the thread is running. Passes responsibility
-     * for rendering surface to the appropriate Screen based on GameState.
+     * Called by GameView before each frame is drawn. Takes the latest Frame the
+     * simulation thread has published, brings the offscreen layers up to date with it
+     * and returns the part of the screen that has changed, or null if the whole
+     * screen needs drawing. The frame is drawn for the given GameState, which the
+     * render thread read from getGameState(). Pass true for everything when the
+     * surface lost what was drawn last.
      */
-    public void render(Canvas canvas) {
+    public Rect prepareFrame(GameState state, boolean everything) {
+        frame = frames.getLatest();
+        // how far, from 0 to 1, we are from that tick to the next one, used to
+        // interpolate ball positions
+        alpha = Math.min(1, (System.nanoTime() - frame.getPublishedNanos()) / TICK_NANOS);
+
+        // these can all be changed from the other threads, and change the whole screen
+        Hint hint = this.hint;
+        boolean tutorial = tutorialNeedsDisplayed;
+        if (everything || state != GameState.GAME_ACTIVE || state != frameState
+                || hint != frameHint || tutorial != frameTutorial) {
+            dirtyRegion.invalidate();
+        }
+        frameState = state;
+        frameHint = hint;
+        frameTutorial = tutorial;
+
+        if (state == GameState.GAME_ACTIVE || state == GameState.GAME_OVER) {
+            boardLayer.update(backgroundBitmap, frame.getBoard(), frame.getBoardVersion(),
+                    dirtyRegion);
+            updateHeading(frame);
+            findMoving(frame);
+        }
+        return dirtyRegion.finish();
+    }
 
-        switch (gameState) {
+    /**
+     * Called by GameView every frame that the render thread is running, after
+     * prepareFrame(). Passes responsibility for rendering surface to the appropriate
+     * Screen based on GameState. Gameplay is drawn from the Frame prepareFrame() took,
+     * never from the engine itself.
+     */
+    public void render(Canvas canvas) {
+        switch (frameState) {
             case MENU_SCREEN:
                 titleScreen.render(canvas);
                 break;
@@ -279,23 +469,74 @@ public class GameManager {
                 pauseScreen.render(canvas);
                 break;
             case GAME_ACTIVE:
-                renderGamePlay(canvas);
+                renderGamePlay(canvas, frame, alpha);
                 renderHeading(canvas);
-                if (isGuideEnabled) {
-                    renderWallOutline(canvas);
-                }
-                if (tutorialNeedsDisplayed) {
+                renderHint(canvas);
+                renderWallOutline(canvas);
+                if (frameTutorial) {
                     canvas.drawBitmap(tutorialBitmap, (int) (displayWidth * .05),
                             (int) (displayHeight * .1), GameView.FAILED_BITMAP_PAINT);
                 }
                 break;
             case GAME_OVER:
-                renderGamePlay(canvas);
+                renderGamePlay(canvas, frame, alpha);
                 renderHeading(canvas);
                 renderGameOver(canvas);
         }
     }
 
+    /*
+        Add everything that moves to the dirty region: the balls where they'll be drawn
+        this frame, the walls still growing and the helper line. Works out the helper
+        line here too, so render() draws exactly what was added.
+     */
+    private void findMoving(Frame frame) {
+        for (int i = 0; i < frame.getBallCount(); i++) {
+            // the ball's bitmap is turned about its center, so its corners can reach
+            // out to the radius times root 2
+            float reach = frame.getBallRadius(i) * 1.5f;
+            float x = frame.getBallX(i, alpha);
+            float y = frame.getBallY(i, alpha);
+            dirtyRegion.addMoving(x - reach, y - reach, x + reach, y + reach);
+        }
+        for (int i = 0; i < frame.getWallCount(); i++) {
+            dirtyRegion.addMoving(frame.getWallLeft(i), frame.getWallTop(i),
+                    frame.getWallRight(i), frame.getWallBottom(i));
+        }
+
+        guideShown = false;
+        if (!isGuideEnabled) {
+            return;
+        }
+        synchronized (gesture) { // the touch carries on on the UI thread
+            // make sure intention to draw a wall is clear, and a wall could actually
+            // start here
+            if (!gameEngine.previewWalls(gesture, frame)) {
+                return;
+            }
+            // through the middle of the square the walls would start from
+            float centerX = gesture.getPreviewX() + gridDimension / 2;
+            float centerY = gesture.getPreviewY() + gridDimension / 2;
+            if (gesture.getPreviewDirection() == Gesture.HORIZONTAL) {
+                guideLine[0] = gesture.getPreviewFrom();
+                guideLine[1] = centerY;
+                guideLine[2] = gesture.getPreviewTo();
+                guideLine[3] = centerY;
+            } else {
+                guideLine[0] = centerX;
+                guideLine[1] = gesture.getPreviewFrom();
+                guideLine[2] = centerX;
+                guideLine[3] = gesture.getPreviewTo();
+            }
+        }
+        guideShown = true;
+        float width = targetPaint.getStrokeWidth() / 2;
+        dirtyRegion.addMoving(Math.min(guideLine[0], guideLine[2]) - width,
+                Math.min(guideLine[1], guideLine[3]) - width,
+                Math.max(guideLine[0], guideLine[2]) + width,
+                Math.max(guideLine[1], guideLine[3]) + width);
+    }
+
     /**
      * Render the GameOver bitmap and a button to allow the user to return to the main
      * menu to try again.
@@ -309,64 +550,70 @@ public class GameManager {
 
     /**
      * If the user has the "helper" line enabled, show the direction and location where
-     * a wall WOULD be drawn if the user were to lift their finger.
-     * <p>
-     * Duplicates some logic from GameEngine class, but I couldn't see a way to
-     * separate it.
+     * a wall WOULD be drawn if the user were to lift their finger. The line runs as far
+     * as the walls would grow before they stopped, as the engine works it out, and is
+     * the same preview the engine places the walls from. It's worked out in
+     * prepareFrame().
      */
     private void renderWallOutline(Canvas canvas) {
-        // make sure intention to draw a wall is clear
-        if (touchEventHistory.size() < GameEngine.WALL_TOUCH_INTENTION) {
-            return;
+        if (guideShown) {
+            canvas.drawLine(guideLine[0], guideLine[1], guideLine[2], guideLine[3],
+                    targetPaint);
         }
+    }
 
-        float firstX = touchEventHistory.get(0)[0];
-        float firstY = touchEventHistory.get(0)[1];
-        float endX = touchEventHistory.get(touchEventHistory.size() - 1)[0];
-        float endY = touchEventHistory.get(touchEventHistory.size() - 1)[1];
-
-        double theta =
-                Math.toDegrees(Math.atan2(Math.abs(firstY - endY),
-                        Math.abs(firstX - endX)));
-
-        // get scaled x and y coords
-        int[] gridLocation = gameEngine.floatToGrid(firstX, firstY);
-        int[][] grid = gameEngine.getGrid();
-        if (grid[gridLocation[1]][gridLocation[0]] == -1 || grid[gridLocation[1]][gridLocation[0]] == 0) {
+    /**
+     * Show the last hint found as a line across the square the walls should start
+     * from, pointing the way they should grow.
+     */
+    private void renderHint(Canvas canvas) {
+        Hint hint = frameHint; // it can be cleared from the other thread
+        if (hint == null) {
             return;
         }
+        float reach = gridDimension * 2;
+        if (hint.isHorizontal()) {
+            canvas.drawLine(hint.getX() - reach, hint.getY(), hint.getX() + reach,
+                    hint.getY(), hintPaint);
+        } else {
+            canvas.drawLine(hint.getX(), hint.getY() - reach, hint.getX(),
+                    hint.getY() + reach, hintPaint);
+        }
+    }
 
-        // horizontal
-        if (theta <= 25) {
-            canvas.drawLine(firstX - (endX - firstX), firstY, endX, firstY, targetPaint);
-            // vertical
-        } else if (theta >= 65) {
-            canvas.drawLine(firstX, firstY - (endY - firstY), firstX, endY, targetPaint);
+    /*
+        Draw the heading into its layer if the score or lives have changed since it
+        was last drawn
+     */
+    private void updateHeading(Frame frame) {
+        int score = frame.getScoreAsPercentage();
+        int lives = frame.getLives();
+        if (score == shownScore && lives == shownLives) {
+            return;
         }
+        shownScore = score;
+        shownLives = lives;
+        scoreTextLength = formatLabel(scoreText, "score: ", score);
+        livesTextLength = formatLabel(livesText, "lives: ", lives);
 
+        headingLayer.eraseColor(Color.TRANSPARENT);
+        headingCanvas.drawBitmap(gameplay_options_buttons, 0, 0,
+                GameView.FAILED_BITMAP_PAINT);
+        headingCanvas.drawText(scoreText, 0, scoreTextLength, 30, 100, textStyle);
+        headingCanvas.drawText(livesText, 0, livesTextLength, 30, 200, textStyle);
+        headingCanvas.drawBitmap(hintButton.getBitmap(), hintButton.getLeft(),
+                hintButton.getTop(), GameView.FAILED_BITMAP_PAINT);
+        headingCanvas.drawBitmap(pauseButton.getBitmap(), pauseButton.getLeft(),
+                pauseButton.getTop(), GameView.FAILED_BITMAP_PAINT);
+        dirtyRegion.addChanged(0, 0, displayWidth, GameView.OPTIONS_HEIGHT);
     }
 
     /**
      * Render the heading that appears at the top of the screen showing the score,
-     * lives, and pause Button. Check if the number of lives decreased, and play a
-     * sound if so.
+     * lives, and pause Button. It's only drawn again when the score or lives change.
      */
     private void renderHeading(Canvas canvas) {
-        canvas.drawBitmap(gameplay_options_buttons, 0, 0, GameView.FAILED_BITMAP_PAINT);
-
-        int score = gameEngine.getScoreAsPercentage();
-        canvas.drawText("score: " + score, 30, 100, textStyle);
-
-        // if the number of lives just went down, play a sad sound.
-        int lives = gameEngine.getLives();
-        if (this.lives > lives) {
-            soundPool.play(lifeLostSound, 1, 1, 0, 0, 1);
-        }
-        this.lives = lives;
-
-        canvas.drawText("lives: " + lives, 30, 200, textStyle);
-        canvas.drawBitmap(pauseButton.getBitmap(), pauseButton.getLeft(),
-                pauseButton.getTop(), GameView.FAILED_BITMAP_PAINT);
+        canvas.drawBitmap(headingLayer, 0, 0, GameView.FAILED_BITMAP_PAINT);
     }
 
     /**
@@ -381,61 +628,83 @@ public class GameManager {
     }
 
     /**
-     * Render gameplay using information taken from the GameEngine.
+     * Render gameplay using information taken from a Frame of the GameEngine.
      */
-    private void renderGamePlay(Canvas canvas) {
+    private void renderGamePlay(Canvas canvas, Frame frame, float alpha) {
 
-        canvas.drawBitmap(backgroundBitmap, 0, 0, GameView.FAILED_BITMAP_PAINT);
-        // go through the current gameEngine grid
-        for (int i = 0; i < gridRepresentation.length; i++) {
-            for (int j = 0; j < gridRepresentation[0].length; j++) {
-                if (gridRepresentation[i][j] == -1) { // draw broken walls where needed
-                    canvas.drawBitmap(brickWallStoppedBitmap, j * gridDimension,
-                            i * gridDimension + GameView.OPTIONS_HEIGHT + GameView.ABSOLUTE_PADDING,
-                            GameView.FAILED_BITMAP_PAINT);
-                }
-                // draw walls covering the "locked" portion of the game
-                else if (gridRepresentation[i][j] != 0 && gridRepresentation[i][j] != -1) {
-                    canvas.drawBitmap(brickFillBitmap, j * gridDimension,
-                            i * gridDimension + GameView.OPTIONS_HEIGHT + GameView.ABSOLUTE_PADDING,
-                            GameView.FAILED_BITMAP_PAINT);
-                }
+        // brought up to date in prepareFrame()
+        canvas.drawBitmap(boardLayer.getBitmap(), 0, 0, GameView.FAILED_BITMAP_PAINT);
 
-            }
+        // add the walls still growing, the rest are on the board
+        for (int i = 0; i < frame.getWallCount(); i++) {
+            wallPaint.setColor(frame.getWallColor(i));
+            canvas.drawRect(frame.getWallLeft(i), frame.getWallTop(i),
+                    frame.getWallRight(i), frame.getWallBottom(i), wallPaint);
         }
 
-        // add the walls
-        for (Wall wall : gameEngine.getWalls()) {
-            if (wall.isMoving()) {
-                canvas.drawRect(wall.getRect(), wall.paint);
-            }
-        }
-
-        // add the balls
-        for (Ball ball : gameEngine.getBalls()) {
-            canvas.drawBitmap(ballBitmap, ball.getMatrix(), GameView.FAILED_BITMAP_PAINT);
+        // add the balls, alpha of the way between their last two positions so movement
+        // looks smooth when frames don't line up with ticks
+        for (int i = 0; i < frame.getBallCount(); i++) {
+            float radius = frame.getBallRadius(i);
+            ballMatrix.setRotate(frame.getBallRotation(i), radius, radius);
+            ballMatrix.postTranslate(frame.getBallX(i, alpha) - radius,
+                    frame.getBallY(i, alpha) - radius);
+            canvas.drawBitmap(ballBitmap, ballMatrix, GameView.FAILED_BITMAP_PAINT);
         }
     }
 
     /**
-     * This method is called by GameView every tick, while the GamePlay thread is
-     * running. Updates the gameEngine, if the game is active, and updates the
-     * GameState, and plays noise, if needed based of the state of the gameEngine.
+     * This method is called by GameView once per fixed simulation step, on the
+     * simulation thread. Updates the gameEngine, if the game is active, publishes a
+     * Frame of it for the render thread and another for the UI thread, then hands
+     * whatever it reported to engineListener, which plays noise and updates the
+     * GameState.
      */
     public void update() {
-        if (gameState == GameState.GAME_ACTIVE) {
-            gameEngine.tick();
+        // saveSnapshot() may be copying the engine from the UI thread
+        synchronized (gameEngine) {
+            if (gameState == GameState.GAME_ACTIVE) {
+                gameEngine.tick();
+            }
+            gameEngine.writeFrame(frames.getBack());
+            gameEngine.writeFrame(touchFrames.getBack());
         }
+        frames.publish();
+        touchFrames.publish();
+
+        // this thread ticks the engine, so it's the only one that drains its events
+        gameEngine.getEvents().drain(engineListener);
+    }
 
-        if (gameEngine.isGameOver()) { // either way we'll need to pause in GameView
-            if (gameEngine.isBeatLevel()) {
-                soundPool.play(levelWonSound, 1, 1, 0, 0, (float) 1.3);
-                gameState = GameState.LEVEL_WON;
-            } else if (gameEngine.getLives() == 0) {
-                soundPool.play(gameOverSound, 1, 1, 0, 0, 1);
-                gameState = GameState.GAME_OVER;
+    /**
+     * Save the game in progress so it can be picked back up the next time the app
+     * starts. The engine is copied into a buffer straight away, which takes well under
+     * a millisecond, and the buffer is written to disk on a background thread. Called
+     * when the app is going into the background.
+     */
+    public void saveSnapshot() {
+        final ByteBuffer buffer;
+        synchronized (gameEngine) {
+            if (gameEngine.isGameOver() && !gameEngine.isBeatLevel()) {
+                buffer = null; // nothing worth carrying on with
+            } else {
+                buffer = ByteBuffer.allocate(gameEngine.getSnapshotSize());
+                gameEngine.writeSnapshot(buffer);
+                buffer.flip();
             }
         }
+
+        final File file = new File(context.getFilesDir(), SNAPSHOT_FILE);
+        snapshotWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (buffer == null) {
+                    file.delete();
+                } else {
+                    writeSnapshot(file, buffer);
+                }
+            }
+        });
     }
 
     /**
@@ -445,6 +714,14 @@ public class GameManager {
         return gameEngine.getLevel();
     }
 
+    /*
+        Return the engine the game is played on. Only tests look at it from outside,
+        to see where the balls are.
+     */
+    GameEngine getEngine() {
+        return gameEngine;
+    }
+
     /**
      * Return the current GameState
      */
@@ -455,10 +732,26 @@ public class GameManager {
     /**
      * Returns a Bitmap registered to this specific context of the dimensions passed.
      * Static method so it can be used in the Screen classes. Essentially a shortcut
-     * for the BitMapFactory methods.
+     * for the BitMapFactory methods. Bitmaps already made at the same size come from
+     * the BitmapCache, so they're shared and must not be drawn into.
      */
     protected static Bitmap generateBitMap(Context context, int id,
                                            int x, int y) {
+        Bitmap scaled = BITMAP_CACHE.get(id, x, y);
+        if (scaled != null) {
+            return scaled;
+        }
+        scaled = scaleBitMap(context, id, x, y);
+        BITMAP_CACHE.put(id, x, y, scaled);
+        return scaled;
+    }
+
+    /**
+     * Same as generateBitMap(), but the Bitmap is made fresh every time and isn't kept
+     * in the BitmapCache. For screens that hold on to more bitmaps than the cache has
+     * room for.
+     */
+    protected static Bitmap scaleBitMap(Context context, int id, int x, int y) {
         Bitmap bitmap = ((BitmapDrawable) Objects.requireNonNull(AppCompatResources.
                 getDrawable(context, id))).getBitmap();
 
@@ -466,6 +759,13 @@ public class GameManager {
                 true);
     }
 
+    /**
+     * Return a line describing how well the BitmapCache is doing, for debugging
+     */
+    protected static String getBitmapStats() {
+        return BITMAP_CACHE.getStats();
+    }
+
     /**
      * Returns the list of all available background drawables
      */
@@ -474,16 +774,219 @@ public class GameManager {
     }
 
     /*
-        Increment level, update saved maxLevel and background
+        Write the label followed by the value into the given buffer and return the
+        number of characters used. Lets the heading be drawn without building a new
+        String every frame.
+     */
+    private static int formatLabel(char[] buffer, String label, int value) {
+        label.getChars(0, label.length(), buffer, 0);
+        int length = label.length();
+
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        // write the digits backwards, then flip them around
+        int start = length;
+        do {
+            buffer[length++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char temp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = temp;
+        }
+        return length;
+    }
+
+    /*
+        Write the snapshot to a temporary file through a FileChannel and then move it
+        into place, so a write cut short never leaves a broken snapshot behind.
+        Runs on the snapshotWriter thread.
+     */
+    private static void writeSnapshot(File file, ByteBuffer buffer) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Log.w("GameManager", "Couldn't save snapshot", e);
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w("GameManager", "Couldn't move snapshot into place");
+        }
+    }
+
+    /*
+        Read back the game saved by saveSnapshot(), or return null if there isn't one
+        or it doesn't fit this screen. It carries on in the mode it was saved in, even
+        if chaos mode has been switched since. Called once, while the app starts.
+     */
+    private GameEngine loadSnapshot(BoardLayout layout) {
+        File file = new File(context.getFilesDir(), SNAPSHOT_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break; // the file got shorter, readSnapshot will turn it down
+                }
+            }
+            buffer.flip();
+            return GameEngine.readSnapshot(layout, buffer);
+        } catch (IOException e) {
+            Log.w("GameManager", "Couldn't read snapshot", e);
+            return null;
+        }
+    }
+
+    /*
+        Keep the session that just ended, so a bad game can be played back with the
+        engine's ReplayRunner. Only the last session is kept; it's a few hundred bytes.
+        The replay is copied straight away and written on the snapshotWriter thread,
+        so the simulation thread doesn't wait on the disk.
+     */
+    private void saveReplay() {
+        final Replay replay;
+        synchronized (gameEngine) {
+            replay = gameEngine.getReplay();
+        }
+
+        final File file = new File(context.getFilesDir(), REPLAY_FILE);
+        snapshotWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                try (OutputStream out =
+                             new BufferedOutputStream(new FileOutputStream(file))) {
+                    replay.write(out);
+                } catch (IOException e) {
+                    Log.w("GameManager", "Couldn't save replay", e);
+                }
+            }
+        });
+    }
+
+    /*
+        Copy the engine and hand it to the hint solver on the hintRequests thread. The
+        hint shows up whenever the solver is done, within about HINT_BUDGET_NANOS.
+        Asking again while it's still thinking does nothing.
+     */
+    private void requestHint() {
+        if (hintPending) {
+            return;
+        }
+        final ByteBuffer buffer;
+        final boolean chaosMode;
+        synchronized (gameEngine) {
+            buffer = ByteBuffer.allocate(gameEngine.getSnapshotSize());
+            gameEngine.writeSnapshot(buffer);
+            chaosMode = gameEngine.isChaosMode();
+        }
+        buffer.flip();
+
+        hintPending = true;
+        hintRequests.execute(new Runnable() {
+            @Override
+            public void run() {
+                hint = hintSolver.solve(buffer, layout, chaosMode, HINT_BUDGET_NANOS);
+                hintPending = false;
+            }
+        });
+    }
+
+    /*
+        Increment level, update saved maxLevel and background. Both come from
+        prefetchNextLevel() when it has set them up, and are set up here otherwise.
      */
     private void loadNextLevel() {
-        gameEngine.nextLevel();
+        hint = null;
+        Future<PreparedLevel> level;
+        Future<Bitmap> nextBitmap;
+        synchronized (levelPrefetch) {
+            level = nextLevel;
+            nextBitmap = nextBackground;
+            nextLevel = null;
+            nextBackground = null;
+        }
+        PreparedLevel prepared = null;
+        Bitmap background = null;
+        if (level != null) {
+            try {
+                // these only wait if they aren't done yet
+                prepared = level.get();
+                background = nextBitmap.get();
+            } catch (ExecutionException | InterruptedException e) {
+                Log.w("GameManager", "Couldn't set up the next level", e);
+            }
+        }
+
+        synchronized (gameEngine) {
+            gameEngine.nextLevel(prepared);
+        }
         maxLevel = Math.max(gameEngine.getLevel(), maxLevel);
         gameView.setMaxLevel(maxLevel);
-        backgroundBitmap = generateBitMap(context, backgrounds.get(gameEngine.getLevel() - 1),
+        backgroundBitmap = background != null ? background
+                : generateBitMap(context, backgrounds.get(gameEngine.getLevel() - 1),
                 displayWidth, displayHeight);
     }
 
+    /*
+        Start setting up the next level on levelPrefetch, unless it already is: the
+        engine places its balls in a scratch engine and its background is decoded and
+        scaled, so loadNextLevel() only has to swap them in.
+     */
+    private void prefetchNextLevel() {
+        synchronized (levelPrefetch) {
+            if (nextLevel != null) {
+                return;
+            }
+            final PreparedLevel next;
+            synchronized (gameEngine) {
+                next = gameEngine.planNextLevel();
+            }
+            nextLevel = levelPrefetch.submit(new Callable<PreparedLevel>() {
+                @Override
+                public PreparedLevel call() {
+                    next.prepare();
+                    return next;
+                }
+            });
+            nextBackground = levelPrefetch.submit(new Callable<Bitmap>() {
+                @Override
+                public Bitmap call() {
+                    if (next.getLevel() > backgrounds.size()) {
+                        return null; // there's no more backgrounds
+                    }
+                    return generateBitMap(context, backgrounds.get(next.getLevel() - 1),
+                            displayWidth, displayHeight);
+                }
+            });
+        }
+    }
+
+    /*
+        Forget the next level set up for a game that's over. The engine would ignore it
+        anyway, but it would stop the next game's being set up.
+     */
+    private void discardNextLevel() {
+        synchronized (levelPrefetch) {
+            if (nextLevel != null) {
+                nextLevel.cancel(false);
+                nextBackground.cancel(false);
+                nextLevel = null;
+                nextBackground = null;
+            }
+        }
+    }
+
     /*
         Helper method to de-clutter constructor. Loads all backgrounds into arraylist.
      */
@@ -16,6 +16,8 @@ import android.view.View;
 
 import androidx.annotation.Nullable;
 
+import edu.bloomu.animationtest.engine.GameEngine;
+
 /**
  * The entirety of the application goes through this GameView class. It is created in
  * MainActivity and is the object of the contentView.
@@ -23,8 +25,10 @@ import androidx.annotation.Nullable;
  * GameManager class and is responsible for starting and stopping the gameplay and UI
  * threads safely.
  * <p>
- * Contains an inner Thread class which handles all UI updates and GameManager ticks,
- * more details within.
+ * Contains two inner Thread classes, one that ticks the GameManager and one that
+ * draws it, more details within. They share nothing but the Frames the GameManager
+ * publishes, so drawing one frame and working out the next can happen at the same
+ * time.
  * <p>
  * AESTHETIC bug -> When the application is in GameState.PAUSED, and the PauseScreen is
  * overlaid the gameplay screen, I need the PauseScreen to update the UI based on user
@@ -41,9 +45,15 @@ public class GameView extends SurfaceView {
 
     private final SurfaceHolder surfaceHolder;
 
-    private final static int MAX_FPS = 35; // works best at 30
-    private final static int FRAME_PERIOD = 1000 / MAX_FPS;
-    private boolean isRunning = false;
+    // the engine advances in fixed steps on its own thread, drawing happens as often
+    // as the display allows, up to MAX_FPS
+    private final static long STEP_NANOS = (long) (GameEngine.TICK_SECONDS * 1e9);
+    private final static int MAX_FPS = 120;
+    private final static long MIN_FRAME_NANOS = 1_000_000_000L / MAX_FPS;
+    // if the device falls this many steps behind, drop the rest of the backlog and let
+    // the game run slower, rather than spending ever longer catching up
+    private final static int MAX_STEPS_BEHIND = 5;
+    private volatile boolean isRunning = false;
 
     private int displayWidth;
     private int displayHeight;
@@ -61,8 +71,10 @@ public class GameView extends SurfaceView {
     private boolean soundOn;
     private boolean guideEnabled;
     private boolean isTutorialEnabled;
+    private boolean chaosMode;
 
     GameLoopThread gameLoopThread = new GameLoopThread();
+    SimulationThread simulationThread = new SimulationThread();
 
     @SuppressLint("ClickableViewAccessibility")
     public GameView(Context context, @Nullable AttributeSet attrs,
@@ -91,6 +103,7 @@ public class GameView extends SurfaceView {
         soundOn = sharedPref.getBoolean(MainActivity.soundSave, true);
         guideEnabled = sharedPref.getBoolean(MainActivity.guideLine, true);
         isTutorialEnabled = sharedPref.getBoolean(MainActivity.firstTime, true);
+        chaosMode = sharedPref.getBoolean(MainActivity.chaosMode, false);
 
         manager = new GameManager(context, displayWidth,
                 displayHeight, this);
@@ -105,12 +118,11 @@ public class GameView extends SurfaceView {
                 // guaranteed to be initialized until now.
                 if (gameLoopThread.getState() == Thread.State.NEW) {
                     isRunning = true;
+                    simulationThread.start();
                     gameLoopThread.start();
                 } else {
                     if (gameLoopThread.getState() == Thread.State.TERMINATED) {
-                        gameLoopThread = new GameLoopThread();
-                        isRunning = (true);
-                        gameLoopThread.start();
+                        resume();
                     }
                 }
             }
@@ -121,7 +133,8 @@ public class GameView extends SurfaceView {
             }
 
             /*
-                Update the sharedPreferences when closing out application
+                Update the sharedPreferences and save the game in progress when closing
+                out application
              */
             @Override
             public void surfaceDestroyed(SurfaceHolder holder) {
@@ -129,6 +142,7 @@ public class GameView extends SurfaceView {
 //        editor.clear();
                 editor.putInt(MainActivity.levelSave, getMaxLevel());
                 editor.apply();
+                saveGame();
             }
         });
     }
@@ -147,6 +161,13 @@ public class GameView extends SurfaceView {
         guideEnabled = b;
     }
 
+    /**
+     * Set value of chaosMode attribute, which takes effect from the next new game
+     */
+    public void setChaosMode(boolean b) {
+        chaosMode = b;
+    }
+
     /**
      * Return true if the sound is currently on
      */
@@ -168,6 +189,14 @@ public class GameView extends SurfaceView {
         return guideEnabled;
     }
 
+    /**
+     * Return true if the next new game should be played in chaos mode, with many balls
+     * per level
+     */
+    public boolean isChaosMode() {
+        return chaosMode;
+    }
+
     /**
      * Return the current max level
      */
@@ -182,6 +211,14 @@ public class GameView extends SurfaceView {
         isTutorialEnabled = b;
     }
 
+    /**
+     * Save the game in progress in the background, so it's still there the next time
+     * the app starts
+     */
+    public void saveGame() {
+        manager.saveSnapshot();
+    }
+
     /**
      * Set the value of the maxLevel field
      */
@@ -198,7 +235,7 @@ public class GameView extends SurfaceView {
     }
 
     /**
-     * Pause the game by stopping the game Thread for update the canvas and gameEngine
+     * Pause the game by stopping the Threads that update the canvas and gameEngine
      */
     public void pause() {
         if (!isRunning) {
@@ -210,6 +247,7 @@ public class GameView extends SurfaceView {
         while (retry) {
             try {
                 gameLoopThread.join();
+                simulationThread.join();
                 retry = false;
             } catch (InterruptedException ignored) {
             }
@@ -217,15 +255,21 @@ public class GameView extends SurfaceView {
     }
 
     /**
-     * Create a new GamePlay thread and start it when safe to do so.
+     * Create new GamePlay threads and start them when safe to do so.
      */
     public void resume() {
         if (isRunning) {
             return;
         }
+        // the last simulation thread notices isRunning went false within a step
+        try {
+            simulationThread.join();
+        } catch (InterruptedException ignored) {
+        }
         isRunning = true;
+        simulationThread = new SimulationThread();
         gameLoopThread = new GameLoopThread();
-        isRunning = true;
+        simulationThread.start();
         gameLoopThread.start();
     }
 
@@ -237,15 +281,47 @@ public class GameView extends SurfaceView {
     }
 
     /**
-     * Private class to update the UI and gameEngine every frame.
+     * Private class to tick the GameManager at a fixed rate, for as long as the game
+     * threads are running.
      */
-    private class GameLoopThread extends Thread {
+    private class SimulationThread extends Thread {
 
         @Override
         public void run() {
             super.run();
 
-            int skipCounter = 0; // how many frames have been skipped
+            // next is when the next step is due. Steps that have fallen due are run
+            // straight away, then the thread sleeps until the one after.
+            long next = System.nanoTime();
+            while (isRunning) {
+                int steps = 0;
+                while (System.nanoTime() - next >= 0 && steps < MAX_STEPS_BEHIND) {
+                    manager.update();
+                    next += STEP_NANOS;
+                    steps++;
+                }
+                long now = System.nanoTime();
+                if (now - next >= 0) {
+                    next = now + STEP_NANOS; // too far behind, drop the backlog
+                }
+
+                long wait = next - now;
+                try {
+                    sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Private class to draw the latest Frame of the game, every frame.
+     */
+    private class GameLoopThread extends Thread {
+
+        @Override
+        public void run() {
+            super.run();
 
             /* Implementing the surfaceHolder within the Thread in this way comes from
                http://www.java2s.com/Tutorials/Android/Android_UI_How_to/View
@@ -253,7 +329,13 @@ public class GameView extends SurfaceView {
                This source was immensely helpful in seeing what the framework should
                actually look like, but very little of the code found at the above link
                actually remains in this project.
+
+               The game itself is advanced by the SimulationThread. This one only
+               draws, and the GameManager works out how far between ticks each frame
+               falls.
             */
+            // a new thread can't count on anything drawn before it
+            boolean repaintAll = true;
             while (isRunning) {
 
                 // Make sure previous surface has been rendered
@@ -261,12 +343,22 @@ public class GameView extends SurfaceView {
                     continue;
                 }
 
-                long started = System.currentTimeMillis();
+                long started = System.nanoTime();
 
+                // only lock the part of the surface that changed, the rest keeps what
+                // was posted last time
+                gameState = manager.getGameState();
+                Rect dirty = manager.prepareFrame(gameState, repaintAll);
                 assert surfaceHolder != null; // we just checked above^^
-                Canvas canvas = surfaceHolder.lockCanvas();
+                Canvas canvas = null;
+                if (dirty == null) {
+                    canvas = surfaceHolder.lockCanvas();
+                } else if (!dirty.isEmpty()) {
+                    canvas = surfaceHolder.lockCanvas(dirty);
+                }
+                // nothing drawn this time, so nothing left over to build on
+                repaintAll = canvas == null && (dirty == null || !dirty.isEmpty());
 
-                gameState = manager.getGameState();
                 if (gameState == GameState.GAME_OVER || gameState == GameState.LEVEL_WON || gameState == GameState.PAUSED) {
                     // gameEngine requires us to pause
                     maxLevel = Math.max(maxLevel, manager.getLevel());
@@ -274,36 +366,25 @@ public class GameView extends SurfaceView {
                         render(canvas); // render one last frame and post it
                         surfaceHolder.unlockCanvasAndPost(canvas);
                     }
-                    pause();
+                    isRunning = false;
+                    return;
                 }
 
-                manager.update(); // tick
-                // render under normal circumstances
                 if (canvas != null) {
                     render(canvas);
                     surfaceHolder.unlockCanvasAndPost(canvas);
                 }
 
-                // try to keep an even frame rate by slowing down if the application is
-                // running too fast
-                float deltaTime = (System.currentTimeMillis() - started);
-                int sleepTime = (int) (FRAME_PERIOD - deltaTime);
+                // posting the canvas usually waits for the display, but don't draw
+                // faster than MAX_FPS if it doesn't
+                long sleepTime = (MIN_FRAME_NANOS - (System.nanoTime() - started))
+                        / 1_000_000;
                 if (sleepTime > 0) {
                     try {
                         sleep(sleepTime);
                     } catch (InterruptedException ignored) {
                     }
                 }
-
-                // if instead we're behind schedule, update the game without rendering
-                // (skip a frame)
-                while (sleepTime < 0) {
-                    manager.update();
-                    sleepTime += FRAME_PERIOD;
-                    skipCounter++;
-                    Log.d("Expected", "Frame skipped: " + skipCounter);
-                }
-                skipCounter = 0;
             }
         }
     }
@@ -10,6 +10,9 @@ import android.os.Bundle;
 import android.util.AttributeSet;
 import android.view.View;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
 /**
  * DESCRIPTION
  * ****************
@@ -115,6 +118,7 @@ public class MainActivity extends AppCompatActivity {
     protected static final String soundSave = "sound";
     protected static final String guideLine = "guideline";
     protected static final String firstTime = "first_time";
+    protected static final String chaosMode = "chaos_mode";
 
 
     @Override
@@ -130,6 +134,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onPause() {
         super.onPause();
         updateSharedPrefs();
+        gameView.saveGame();
     }
 
     @Override
@@ -143,12 +148,25 @@ public class MainActivity extends AppCompatActivity {
         super.onResume();
     }
 
+    /*
+        Shown by "adb shell dumpsys activity edu.bloomu.animationtest", so how the
+        BitmapCache is doing can be checked on a running game.
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer,
+                     String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(prefix);
+        writer.println(GameManager.getBitmapStats());
+    }
+
     private void updateSharedPrefs() {
         SharedPreferences.Editor editor = sharedPref.edit();
         editor.putInt(levelSave, gameView.getMaxLevel());
         editor.putBoolean(firstTime, gameView.isTutorialEnabled());
         editor.putBoolean(soundSave, gameView.isSoundOn());
         editor.putBoolean(guideLine, gameView.isGuideEnabled());
+        editor.putBoolean(chaosMode, gameView.isChaosMode());
         editor.apply();
     }
 
@@ -6,7 +6,8 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 
-import java.util.ArrayList;
+import edu.bloomu.animationtest.engine.Gesture;
+
 
 /**
  * Encapsulates all the rendering and touch event responses needed when the application
@@ -25,24 +26,29 @@ public class PauseScreen extends Screen {
     private final Button muteButton;
     private final Button guideButton;
     private final Button tutorialButton;
+    private final Button chaosButton;
 
     private boolean isSoundOn;
     private boolean isGuideEnabled;
+    private boolean isChaosMode;
     private final Paint textPaint;
     private final int textSize = 30;
     private final int textX;
     private final int guideY;
     private final int soundY;
     private final int tutorialY;
+    private final int chaosY;
     private boolean isTutorialEnabled;
 
 
     public PauseScreen(Context context, int left, int right, int top, int bottom,
-                       boolean isSoundOn, boolean isGuideEnabled, boolean isTutorialEnabled) {
+                       boolean isSoundOn, boolean isGuideEnabled,
+                       boolean isTutorialEnabled, boolean isChaosMode) {
         super(context, left, right, top, bottom);
         this.isSoundOn = isSoundOn;
         this.isGuideEnabled = isGuideEnabled;
         this.isTutorialEnabled = isTutorialEnabled;
+        this.isChaosMode = isChaosMode;
 
         // initialize various buttons and bitmaps
         bgBitmap = generateBitMap(context, R.drawable.options_bg, width, height);
@@ -85,10 +91,19 @@ public class PauseScreen extends Screen {
         textPaint.setTextSize(30);
         textPaint.setTypeface(GameManager.TYPEFACE);
 
+        // there's no artwork for chaos mode, so it's the word in the settings' font
+        Bitmap chaosBitmap = Bitmap.createBitmap(toggleButtonWidth, toggleButtonHeight,
+                Bitmap.Config.ARGB_8888);
+        new Canvas(chaosBitmap).drawText("chaos", 0, toggleButtonHeight * .6f,
+                textPaint);
+        chaosButton = new Button(toggleButtonX,
+                top + (int) (getHeight() * .85), chaosBitmap);
+
         textX = guideButton.getRight() + (int) (width * .1);
         guideY = centerTextOn(guideButton);
         soundY = centerTextOn(muteButton);
         tutorialY = centerTextOn(tutorialButton);
+        chaosY = centerTextOn(chaosButton);
     }
 
     private int centerTextOn(Button button) {
@@ -114,7 +129,7 @@ public class PauseScreen extends Screen {
      * returns the updated GameState according to the input.
      */
     @Override
-    public GameState interpretTouch(ArrayList<float[]> touches,
+    public GameState interpretTouch(Gesture touches,
                                     GameState currentGameState) {
 
         if (menuButton.clickedIn(touches)) {
@@ -129,6 +144,8 @@ public class PauseScreen extends Screen {
             isGuideEnabled = !isGuideEnabled;
         } else if (tutorialButton.clickedIn(touches)) {
             isTutorialEnabled = !isTutorialEnabled;
+        } else if (chaosButton.clickedIn(touches)) {
+            isChaosMode = !isChaosMode;
         }
         return GameState.PAUSED;
     }
@@ -152,17 +169,28 @@ public class PauseScreen extends Screen {
                 guideButton.getTop(), GameView.FAILED_BITMAP_PAINT);
         canvas.drawBitmap(tutorialButton.getBitmap(), tutorialButton.getLeft(),
                 tutorialButton.getTop(), GameView.FAILED_BITMAP_PAINT);
+        canvas.drawBitmap(chaosButton.getBitmap(), chaosButton.getLeft(),
+                chaosButton.getTop(), GameView.FAILED_BITMAP_PAINT);
         // update depending on the settings
         String guide = isGuideEnabled ? "ON" : "OFF";
         String sound = isSoundOn ? "ON" : "OFF";
         String tutorial = isTutorialEnabled ? "ON" : "OFF";
+        String chaos = isChaosMode ? "ON" : "OFF";
 
         canvas.drawText(guide, textX, guideY, textPaint);
         canvas.drawText(sound, textX, soundY, textPaint);
         canvas.drawText(tutorial, textX, tutorialY, textPaint);
+        canvas.drawText(chaos, textX, chaosY, textPaint);
     }
 
     public boolean isTutorialEnabled() {
         return isTutorialEnabled;
     }
+
+    /**
+     * Return true if chaos mode is set to on. It takes effect from the next new game.
+     */
+    public boolean isChaosMode() {
+        return isChaosMode;
+    }
 }
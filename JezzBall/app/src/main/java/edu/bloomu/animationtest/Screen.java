@@ -7,7 +7,8 @@ import android.graphics.drawable.BitmapDrawable;
 
 import androidx.appcompat.content.res.AppCompatResources;
 
-import java.util.ArrayList;
+import edu.bloomu.animationtest.engine.Gesture;
+
 import java.util.Objects;
 
 /**
@@ -43,7 +44,7 @@ public abstract class Screen {
     /**
      * Interpret touch events and return an updated GameState
      */
-    public abstract GameState interpretTouch(ArrayList<float[]> touches,
+    public abstract GameState interpretTouch(Gesture touches,
                                              GameState currentGameState);
 
     /**
@@ -59,6 +60,14 @@ public abstract class Screen {
         return GameManager.generateBitMap(context, id, x, y);
     }
 
+    /**
+     * Same as generateBitMap(), but the bitmap isn't kept in the BitmapCache
+     */
+    protected Bitmap scaleBitMap(Context context, int id,
+                                 int x, int y) {
+        return GameManager.scaleBitMap(context, id, x, y);
+    }
+
     /**
      * Returns the width of this screen
      */
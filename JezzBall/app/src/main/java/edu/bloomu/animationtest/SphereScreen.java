@@ -4,8 +4,8 @@ import android.content.Context;
 import android.content.pm.LauncherApps;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
+
+import edu.bloomu.animationtest.engine.Gesture;
 
 import java.util.ArrayList;
 
@@ -47,7 +47,7 @@ public class SphereScreen extends Screen {
      * Return the appropriate GameState after touch.
      */
     @Override
-    public GameState interpretTouch(ArrayList<float[]> touches,
+    public GameState interpretTouch(Gesture touches,
                                     GameState currentGameState) {
 
         // allow the user to update their selection by touching an unlocked sphere
@@ -76,21 +76,22 @@ public class SphereScreen extends Screen {
      */
     @Override
     public void render(Canvas canvas) {
-        canvas.drawBitmap(background, left, top, new Paint(Color.BLACK));
+        canvas.drawBitmap(background, left, top, GameView.FAILED_BITMAP_PAINT);
 
-        for (IDButton button : sphereChoices) {
+        for (int i = 0; i < sphereChoices.size(); i++) {
+            IDButton button = sphereChoices.get(i);
             // draw circle around chosen sphere
             if (button.getId() == selection) {
                 canvas.drawBitmap(selected, (int) (button.getLeft() - buttonSize * .15),
                         (int) (button.getTop() - buttonSize * .15),
-                        new Paint(GameView.FAILED_BITMAP_PAINT));
+                        GameView.FAILED_BITMAP_PAINT);
             }
             canvas.drawBitmap(button.getBitmap(), button.getLeft(), button.getTop(),
-                    new Paint(Color.BLACK));
+                    GameView.FAILED_BITMAP_PAINT);
         }
 
         canvas.drawBitmap(selectButton.getBitmap(), selectButton.getLeft(),
-                selectButton.getTop(), new Paint(Color.BLACK));
+                selectButton.getTop(), GameView.FAILED_BITMAP_PAINT);
 
     }
 
@@ -7,7 +7,8 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.util.Log;
 
-import java.util.ArrayList;
+import edu.bloomu.animationtest.engine.Gesture;
+
 
 /**
  * Encapsulates all the rendering and touch event responses needed when the application
@@ -89,7 +90,7 @@ public class TitleScreen extends Screen {
      * information if selected by the user.
      * This method is responsible for handling input if the state is MENU_SCREEN.
      */
-    public GameState interpretTouch(ArrayList<float[]> touches,
+    public GameState interpretTouch(Gesture touches,
                                     GameState currentGameState) {
 
         isTutorialEnabled = false;
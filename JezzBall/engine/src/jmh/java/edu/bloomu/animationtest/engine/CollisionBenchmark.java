@@ -0,0 +1,64 @@
+package edu.bloomu.animationtest.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of the ball-vs-ball bounce. Each call puts the same two balls back on a
+ * collision course first, so every op does the full calculation rather than finding
+ * the balls already moving apart.
+ */
+@State(Scope.Thread)
+public class CollisionBenchmark {
+
+    private static final int RADIUS = 32;
+    private static final double SPEED = 210;
+
+    private EntityStore store;
+    private Ball a;
+    private Ball b;
+
+    @Setup
+    public void setUp() {
+        store = new EntityStore(new BoardLayout(1080, 2200, 300, 20));
+        a = store.addBall(0, 0, 0, 0, RADIUS);
+        b = store.addBall(0, 0, 0, 0, RADIUS);
+    }
+
+    /**
+     * The bounce for two balls already overlapping, as Ball exposes it
+     */
+    @Benchmark
+    public double ballCollisionAdjustment() {
+        place(500, 1000, 550, 1010);
+        Ball.ballCollisionAdjustment(a, b);
+        return store.ballDx[0];
+    }
+
+    /**
+     * The swept version tick() runs, where the balls start apart and the time they
+     * meet during the step has to be solved for first
+     */
+    @Benchmark
+    public double sweptCollision() {
+        place(500, 1000, 570, 1010);
+        store.collideBalls(0, 1, GameEngine.MAX_STEP_SECONDS);
+        return store.ballDx[0];
+    }
+
+    /*
+     * Put both balls at the given centers, heading towards each other
+     */
+    private void place(double ax, double ay, double bx, double by) {
+        store.ballX[0] = ax;
+        store.ballY[0] = ay;
+        store.ballDx[0] = SPEED;
+        store.ballDy[0] = SPEED / 5;
+        store.ballX[1] = bx;
+        store.ballY[1] = by;
+        store.ballDx[1] = -SPEED;
+        store.ballDy[1] = -SPEED / 5;
+    }
+}
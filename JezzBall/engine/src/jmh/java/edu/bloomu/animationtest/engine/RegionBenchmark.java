@@ -0,0 +1,103 @@
+package edu.bloomu.animationtest.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of the RegionMap searches on an open board and on a fragmented one.
+ * flood() is the scanline fill used whenever regions are labelled from scratch, and
+ * closeRow() walls off a whole row so the board splits in two, which is the work
+ * checkPartition used to do when a wall stopped.
+ * <p>
+ * The fragmented board is a maze of small rooms joined by one-square doorways, so the
+ * fill has to squeeze through many short runs to get anywhere.
+ */
+@State(Scope.Thread)
+public class RegionBenchmark {
+
+    private static final int ROWS = 60;
+    private static final int COLUMNS = 30;
+    private static final int ROOM = 5; // squares between the maze's walls
+
+    @Param({"open", "fragmented"})
+    public String layout;
+
+    private RegionMap regions;
+    private int fill;
+
+    @Setup
+    public void setUp() {
+        regions = new RegionMap(createBoard(layout));
+    }
+
+    @Benchmark
+    public int flood() {
+        return regions.flood(0, 0, ++fill);
+    }
+
+    @Benchmark
+    public int closeRow(Split split) {
+        for (int j = 0; j < COLUMNS; j++) {
+            split.regions.close(split.row, j);
+        }
+        return split.regions.getChangedCount();
+    }
+
+    /**
+     * closeRow() leaves the board split, so this state puts it back before every call.
+     * Kept apart from the flood state so flood() doesn't pay for the reset.
+     */
+    @State(Scope.Thread)
+    public static class Split {
+
+        @Param({"open", "fragmented"})
+        public String layout;
+
+        private Board start;
+        private Board board;
+        private RegionMap regions;
+        private int row;
+
+        @Setup
+        public void setUp() {
+            start = createBoard(layout);
+            board = new Board(ROWS, COLUMNS);
+            regions = new RegionMap(board);
+
+            // through the middle of a row of rooms, never along one of the maze's walls
+            row = ROWS / 2 - ROWS / 2 % ROOM + ROOM / 2 - 1;
+        }
+
+        @Setup(Level.Invocation)
+        public void resetBoard() {
+            board.copyFrom(start);
+            regions.rebuild();
+        }
+    }
+
+    /*
+     * Build either an empty board or the maze, a grid of ROOM sized rooms with a
+     * doorway in the middle of every side.
+     */
+    private static Board createBoard(String layout) {
+        Board board = new Board(ROWS, COLUMNS);
+        if (layout.equals("fragmented")) {
+            for (int i = 0; i < ROWS; i++) {
+                for (int j = 0; j < COLUMNS; j++) {
+                    boolean wallRow = i % ROOM == ROOM - 1;
+                    boolean wallColumn = j % ROOM == ROOM - 1;
+                    boolean door = (wallRow && j % ROOM == ROOM / 2)
+                            || (wallColumn && i % ROOM == ROOM / 2);
+                    if ((wallRow || wallColumn) && !door) {
+                        board.set(i, j, Board.WALL);
+                    }
+                }
+            }
+        }
+        return board;
+    }
+}
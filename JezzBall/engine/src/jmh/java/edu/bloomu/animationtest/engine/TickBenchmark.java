@@ -0,0 +1,76 @@
+package edu.bloomu.animationtest.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of GameEngine.tick() as the number of balls grows, on an open board and
+ * on boards that walls have already cut up. One op is one tick of TICK_SECONDS.
+ */
+@State(Scope.Thread)
+public class TickBenchmark {
+
+    private static final int BOARD_WIDTH = 1080;
+    private static final int BOARD_TOP = 300;
+    private static final int PADDING = 20;
+    private static final int GAP = 3; // open squares left at one end of each wall
+
+    @Param({"10", "100", "1000"})
+    public int balls;
+
+    // rows walled off before the balls are added
+    @Param({"0", "4", "12"})
+    public int walls;
+
+    private GameEngine engine;
+
+    @Setup
+    public void setUp() {
+        // tall enough to hold the balls without crowding them
+        float dimension = BOARD_WIDTH / 30f;
+        int rows = Math.max(60, balls / 2);
+        int height = (int) (rows * dimension) + BOARD_TOP;
+        engine = new GameEngine(new BoardLayout(BOARD_WIDTH, height, BOARD_TOP, PADDING),
+                false);
+
+        // full rows of wall, with the gap at alternating ends so the board stays one
+        // long region and nothing gets revealed
+        Board board = engine.getBoard();
+        for (int k = 1; k <= walls; k++) {
+            int row = k * board.getRows() / (walls + 1);
+            int gap = k % 2 == 0 ? 0 : board.getColumns() - GAP;
+            for (int column = 0; column < board.getColumns(); column++) {
+                if ((column < gap || column >= gap + GAP)
+                        && !isUnderBall(row, column, dimension)) {
+                    engine.closeSquare(row, column);
+                }
+            }
+        }
+        engine.addBalls(balls - engine.getBalls().size());
+    }
+
+    @Benchmark
+    public void tick() {
+        engine.tick();
+    }
+
+    /*
+     * Return true if the level's starting ball covers any of the given square, so the
+     * walls can be laid around it.
+     */
+    private boolean isUnderBall(int row, int column, float dimension) {
+        float left = column * dimension;
+        float top = row * dimension + BOARD_TOP;
+        for (Ball ball : engine.getBalls()) {
+            Bounds oval = ball.getOval();
+            if (oval.left < left + dimension && oval.right > left
+                    && oval.top < top + dimension && oval.bottom > top) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,90 @@
+package edu.bloomu.animationtest.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Throughput of wall growth. Each wall finds where it will stop on the Board once,
+ * when it's placed, so however crowded the board is, growing it is only a comparison
+ * against that stop. One op grows every wall in the store by one tick, starting any
+ * wall that has stopped over again from where it began.
+ */
+@State(Scope.Thread)
+public class WallBenchmark {
+
+    private static final int COLUMNS = 30;
+    private static final int ROWS = 60;
+    private static final int BOARD_WIDTH = 1080;
+    private static final int BOARD_TOP = 300;
+    private static final float DIMENSION = BOARD_WIDTH / (float) COLUMNS;
+
+    @Param({"2", "32"})
+    public int walls;
+
+    // share of the board's squares that are already closed
+    @Param({"0", "0.3"})
+    public double crowding;
+
+    private EntityStore store;
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        int height = (int) (ROWS * DIMENSION) + BOARD_TOP;
+        store = new EntityStore(new BoardLayout(BOARD_WIDTH, height, BOARD_TOP, 20));
+        board = new Board(ROWS, COLUMNS);
+
+        // the same board and walls every run
+        Random random = new Random(42);
+        for (int i = 0; i < board.getSize(); i++) {
+            if (random.nextDouble() < crowding) {
+                board.set(i, Board.WALL);
+            }
+        }
+
+        Direction[] directions = Direction.values();
+        while (store.wallCount < walls) {
+            int square = random.nextInt(board.getSize());
+            if (board.isOpen(square / COLUMNS, square % COLUMNS)) {
+                Wall wall = store.addWall(square % COLUMNS * DIMENSION,
+                        square / COLUMNS * DIMENSION + BOARD_TOP, DIMENSION,
+                        directions[random.nextInt(directions.length)], 0);
+                store.aimWall(wall.getIndex(), board, DIMENSION);
+            }
+        }
+    }
+
+    @Benchmark
+    public int growWalls() {
+        int moving = 0;
+        for (int i = 0; i < store.wallCount; i++) {
+            if (!store.wallMoving[i]) {
+                restart(i);
+            }
+            store.growWall(i, GameEngine.TICK_SECONDS);
+            if (store.wallMoving[i]) {
+                moving++;
+            }
+        }
+        return moving;
+    }
+
+    /*
+     * Put a stopped wall back to a single square at its starting point. The board
+     * doesn't change, so its stop is still good.
+     */
+    private void restart(int i) {
+        store.wallLeft[i] = store.wallStartX[i];
+        store.wallTop[i] = store.wallStartY[i];
+        store.wallRight[i] = store.wallStartX[i] + store.wallThickness[i];
+        store.wallBottom[i] = store.wallStartY[i] + store.wallThickness[i];
+        store.wallLength[i] = 0;
+        store.wallIncrement[i] = 0;
+        store.wallMoving[i] = true;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * View over a single ball held in an EntityStore. The store keeps the x and y
+ * coordinates, dx, dy and rotation of every ball in parallel arrays, and this class
+ * reads one slot of those arrays so the rest of the application can treat a ball as an
+ * object, mostly for rendering. Drawing is left to the app, which builds its own
+ * Matrix from getX(alpha), getY(alpha) and getRotation(). Provides method to calculate
+ * and update dx and dy of two balls upon collision with one another.
+ *
+ * @author Dakotah Kurtz
+ */
+public class Ball {
+    private final EntityStore store;
+    private final int index;
+
+    private final Bounds oval;
+
+    Ball(EntityStore store, int index) {
+        this.store = store;
+        this.index = index;
+        oval = new Bounds();
+    }
+
+    /**
+     * Returns the x coordinate to draw the ball's center at. The ball is placed alpha
+     * of the way from where it was before the last tick to where it is now, so
+     * movement looks smooth when frames don't line up with ticks.
+     */
+    public double getX(float alpha) {
+        return store.ballPrevX[index] + (store.ballX[index] - store.ballPrevX[index])
+                * alpha;
+    }
+
+    /**
+     * Returns the y coordinate to draw the ball's center at. See getX(float).
+     */
+    public double getY(float alpha) {
+        return store.ballPrevY[index] + (store.ballY[index] - store.ballPrevY[index])
+                * alpha;
+    }
+
+    /**
+     * Returns how far the ball has turned, in degrees
+     */
+    public float getRotation() {
+        return store.ballRotation[index];
+    }
+
+    /**
+     * Returns the current oval that "bounds" the edges of the ball. The same Bounds is
+     * updated and returned on every call.
+     */
+    public Bounds getOval() {
+        int radius = store.ballRadius[index];
+        oval.set((float) (store.ballX[index] - radius),
+                (float) (store.ballY[index] - radius),
+                (float) (store.ballX[index] + radius),
+                (float) (store.ballY[index] + radius));
+        return oval;
+    }
+
+    /**
+     * Static method that:
+     * 1. Determines if the two given balls have collided and
+     * 2. updates the dx and dy attributes of those balls if they have collided.
+     * <p>
+     * I did NOT come up with this algorithm myself. I had attempted to make a JezzBall
+     * clone back in Java II but it was way beyond me. However, I did get ball
+     * collisions working properly after modifying code I found on the internet. I
+     * stole the code from my old project for the collision calculations used below,
+     * but I do not know the original source and couldn't find it.
+     * <p>
+     * The calculation itself lives in EntityStore.collideBalls so the GameEngine can
+     * run it directly on the store's arrays.
+     */
+    public static void ballCollisionAdjustment(Ball a, Ball b) {
+        a.store.collideBalls(a.index, b.index, 0);
+    }
+
+    /**
+     * Return the index of this ball in its EntityStore
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Return the current dy, in pixels per second
+     */
+    public double getDy() {
+        return store.ballDy[index];
+    }
+
+    /**
+     * Return the current dx, in pixels per second
+     */
+    public double getDx() {
+        return store.ballDx[index];
+    }
+
+    /**
+     * Return the current radius of the ball
+     */
+    public float getRadius() {
+        return store.ballRadius[index];
+    }
+
+    /**
+     * Return the current value of the x coordinate
+     */
+    public double getX() {
+        return store.ballX[index];
+    }
+
+    /**
+     * Return the current value of the y coordinate
+     */
+    public double getY() {
+        return store.ballY[index];
+    }
+}
@@ -0,0 +1,203 @@
+package edu.bloomu.animationtest.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The state of every square of the game grid, stored as one byte per square in a
+ * single row-major array. A square is either open, a wall or revealed; which region an
+ * open square belongs to is kept separately by the RegionMap, since only it needs to
+ * know.
+ * <p>
+ * Squares can be addressed either by row and column or by their index in the array,
+ * row * columns + column, which is how the rest of the engine packs squares into a
+ * single int. Whole rows can be filled, counted and copied at once.
+ * <p>
+ * Every change bumps the board's version, so a copy of it only needs to be made again
+ * when the version has moved on.
+ */
+
+public class Board {
+
+    public static final byte OPEN = 0;
+    public static final byte WALL = 1;
+    public static final byte REVEALED = 2;
+
+    private final int rows;
+    private final int columns;
+    private final byte[] squares;
+    private int version;
+
+    public Board(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        squares = new byte[rows * columns];
+    }
+
+    /**
+     * Return the number of rows on the board
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Return the number of columns on the board
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Return the total number of squares on the board
+     */
+    public int getSize() {
+        return squares.length;
+    }
+
+    /**
+     * Return a number that changes whenever any square of the board does
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Return the index of the square at the given row and column
+     */
+    public int indexOf(int row, int column) {
+        return row * columns + column;
+    }
+
+    /**
+     * Return true if the given row and column is on the board
+     */
+    public boolean isOnBoard(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    /**
+     * Return the state of the square at the given index
+     */
+    public byte get(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Return the state of the square at the given row and column
+     */
+    public byte get(int row, int column) {
+        return squares[row * columns + column];
+    }
+
+    /**
+     * Set the state of the square at the given index
+     */
+    public void set(int square, byte state) {
+        squares[square] = state;
+        version++;
+    }
+
+    /**
+     * Set the state of the square at the given row and column
+     */
+    public void set(int row, int column, byte state) {
+        squares[row * columns + column] = state;
+        version++;
+    }
+
+    /**
+     * Return true if the square at the given index is neither a wall nor revealed
+     */
+    public boolean isOpen(int square) {
+        return squares[square] == OPEN;
+    }
+
+    /**
+     * Return true if the square at the given row and column is neither a wall nor
+     * revealed
+     */
+    public boolean isOpen(int row, int column) {
+        return squares[row * columns + column] == OPEN;
+    }
+
+    /**
+     * Set every square on the board to the given state
+     */
+    public void fill(byte state) {
+        Arrays.fill(squares, state);
+        version++;
+    }
+
+    /**
+     * Set the squares of the given row from column from (inclusive) to column to
+     * (exclusive) to the given state
+     */
+    public void fillRow(int row, int from, int to, byte state) {
+        Arrays.fill(squares, row * columns + from, row * columns + to, state);
+        version++;
+    }
+
+    /**
+     * Return the number of squares in the given row in the given state
+     */
+    public int countRow(int row, byte state) {
+        int count = 0;
+        for (int k = row * columns, end = k + columns; k < end; k++) {
+            if (squares[k] == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Return the number of squares on the whole board in the given state
+     */
+    public int count(byte state) {
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            count += countRow(row, state);
+        }
+        return count;
+    }
+
+    /**
+     * Copy the given row into destination, starting at offset
+     */
+    public void copyRow(int row, byte[] destination, int offset) {
+        System.arraycopy(squares, row * columns, destination, offset, columns);
+    }
+
+    /**
+     * Overwrite the given row from source, starting at offset
+     */
+    public void setRow(int row, byte[] source, int offset) {
+        System.arraycopy(source, offset, squares, row * columns, columns);
+        version++;
+    }
+
+    /**
+     * Write every square to the buffer, one byte each
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.put(squares);
+    }
+
+    /**
+     * Overwrite every square from the buffer, as written by write() from a board of the
+     * same size
+     */
+    public void read(ByteBuffer buffer) {
+        buffer.get(squares);
+        version++;
+    }
+
+    /**
+     * Make this board a copy of another board of the same size
+     */
+    public void copyFrom(Board other) {
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        version++;
+    }
+}
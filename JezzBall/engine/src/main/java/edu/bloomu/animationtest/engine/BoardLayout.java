@@ -0,0 +1,55 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * Where the game board sits on the screen, handed to the GameEngine when it's created.
+ * The engine used to read these straight out of GameView's static fields; passing them
+ * in means several engines with different layouts can run in the same process, and
+ * nothing about the board depends on Android.
+ * <p>
+ * The grid starts at top and fills the rest of the screen. Balls are kept padding
+ * pixels below top, and twice that above the bottom of the screen.
+ */
+
+public final class BoardLayout {
+
+    private final int width;
+    private final int height;
+    private final int top;
+    private final int padding;
+
+    public BoardLayout(int width, int height, int top, int padding) {
+        this.width = width;
+        this.height = height;
+        this.top = top;
+        this.padding = padding;
+    }
+
+    /**
+     * Return the width of the screen
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Return the height of the screen
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Return the y coordinate where the grid begins. Everything above it belongs to
+     * the heading.
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Return the gap kept between the balls and the top and bottom of the play area
+     */
+    public int getPadding() {
+        return padding;
+    }
+}
@@ -0,0 +1,47 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * A rectangle given by its four edges, in the same screen coordinates as everything
+ * else in the engine. Stands in for android.graphics.RectF so the engine doesn't need
+ * Android to run; the fields are public and mutable in the same way so one instance
+ * can be refilled every frame.
+ */
+
+public class Bounds {
+
+    public float left;
+    public float top;
+    public float right;
+    public float bottom;
+
+    public Bounds() {
+    }
+
+    public Bounds(float left, float top, float right, float bottom) {
+        set(left, top, right, bottom);
+    }
+
+    /**
+     * Set all four edges at once
+     */
+    public void set(float left, float top, float right, float bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    /**
+     * Return the distance from the left edge to the right edge
+     */
+    public float width() {
+        return right - left;
+    }
+
+    /**
+     * Return the distance from the top edge to the bottom edge
+     */
+    public float height() {
+        return bottom - top;
+    }
+}
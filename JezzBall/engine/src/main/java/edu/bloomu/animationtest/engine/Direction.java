@@ -1,4 +1,4 @@
-package edu.bloomu.animationtest;
+package edu.bloomu.animationtest.engine;
 
 /**
  * Enum to more succinctly reference the direction a wall is growing/grew
@@ -0,0 +1,621 @@
+package edu.bloomu.animationtest.engine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Holds the state of every Ball and Wall in play as parallel primitive arrays, one
+ * array per attribute, so the GameEngine can integrate and collide entities by walking
+ * contiguous memory rather than chasing a pointer to each object.
+ * <p>
+ * Ball and Wall objects are thin views over one index of these arrays. They exist for
+ * rendering and for the rest of the application to hold on to, and are kept in the
+ * same order as the arrays so view i always reads slot i.
+ * <p>
+ * Balls are only ever added or cleared all at once. Walls are removed individually by
+ * moving the last wall into the freed slot, which also updates that wall's view. The
+ * view of a removed wall is kept and handed out again by the next addWall(), so
+ * placing walls doesn't make garbage either.
+ */
+
+public class EntityStore {
+
+    // speeds are per second of simulated time
+    private final static float WALL_SPEED = 140;
+    private final static float ROTATION_SPEED = 70; // degrees
+
+    /*
+     * Ball state. Arrays may be longer than ballCount, only the first ballCount slots
+     * are in use.
+     */
+    int ballCount;
+    double[] ballX;
+    double[] ballY;
+    double[] ballPrevX; // position before the last tick, for render interpolation
+    double[] ballPrevY;
+    double[] ballDx; // velocity, in pixels per second
+    double[] ballDy;
+    int[] ballRadius;
+    float[] ballRotation;
+    int[] ballSquare; // grid square the ball's center is in, kept up to date by the engine
+
+    /*
+     * Wall state. The rectangle a wall covers is kept as four separate edges.
+     */
+    int wallCount;
+    float[] wallStartX;
+    float[] wallStartY;
+    float[] wallThickness;
+    float[] wallLeft;
+    float[] wallTop;
+    float[] wallRight;
+    float[] wallBottom;
+    int[] wallLength;
+    float[] wallIncrement; // track when the wall will next "grow"
+    // the coordinate the growing edge stops at, worked out once by aimWall()
+    float[] wallStop;
+    Direction[] wallDirection;
+    boolean[] wallMoving;
+    boolean[] wallDrawn;
+
+    private final ArrayList<Ball> balls;
+    private final ArrayList<Wall> walls;
+    private final ArrayList<Wall> spareWalls; // views of removed walls, to reuse
+
+    // edges of the game area that walls stop at
+    private final int width;
+    private final int height;
+    private final int boardTop;
+
+    // bytes each ball and wall takes in a snapshot
+    private final static int BALL_BYTES = 6 * 8 + 4 + 4;
+    private final static int WALL_BYTES = 7 * 4 + 4 + 4 + 3 + 4;
+
+    public EntityStore(BoardLayout layout) {
+        width = layout.getWidth();
+        height = layout.getHeight();
+        boardTop = layout.getTop();
+        balls = new ArrayList<>();
+        walls = new ArrayList<>();
+        spareWalls = new ArrayList<>();
+        growBalls(16);
+        growWalls(4);
+    }
+
+    /**
+     * Add a ball to the store and return the view over it
+     */
+    public Ball addBall(double x, double y, double dx, double dy, int radius) {
+        if (ballCount == ballX.length) {
+            growBalls(ballCount * 2);
+        }
+        int i = ballCount++;
+        ballX[i] = x;
+        ballY[i] = y;
+        ballPrevX[i] = x;
+        ballPrevY[i] = y;
+        ballDx[i] = dx;
+        ballDy[i] = dy;
+        ballRadius[i] = radius;
+        ballRotation[i] = 0;
+
+        Ball ball = new Ball(this, i);
+        balls.add(ball);
+        return ball;
+    }
+
+    /**
+     * Add a wall to the store that will begin growing from the given location, and
+     * return the view over it
+     */
+    public Wall addWall(float startX, float startY, float thickness,
+                        Direction direction, int color) {
+        if (wallCount == wallStartX.length) {
+            growWalls(wallCount * 2);
+        }
+        int i = wallCount++;
+        wallStartX[i] = startX;
+        wallStartY[i] = startY;
+        wallThickness[i] = thickness;
+        wallLeft[i] = startX;
+        wallTop[i] = startY;
+        wallRight[i] = startX + thickness;
+        wallBottom[i] = startY + thickness;
+        wallLength[i] = 0;
+        wallIncrement[i] = 0;
+        wallStop[i] = edgeOf(direction);
+        wallDirection[i] = direction;
+        wallMoving[i] = true;
+        wallDrawn[i] = false;
+
+        Wall wall;
+        if (spareWalls.isEmpty()) {
+            wall = new Wall(this, i, color);
+        } else {
+            wall = spareWalls.remove(spareWalls.size() - 1);
+            wall.reuse(i, color);
+        }
+        walls.add(wall);
+        return wall;
+    }
+
+    /**
+     * Remove the wall at the given index by moving the last wall into its slot
+     */
+    public void removeWall(int i) {
+        Wall removed = walls.get(i);
+        int last = --wallCount;
+        if (i != last) {
+            wallStartX[i] = wallStartX[last];
+            wallStartY[i] = wallStartY[last];
+            wallThickness[i] = wallThickness[last];
+            wallLeft[i] = wallLeft[last];
+            wallTop[i] = wallTop[last];
+            wallRight[i] = wallRight[last];
+            wallBottom[i] = wallBottom[last];
+            wallLength[i] = wallLength[last];
+            wallIncrement[i] = wallIncrement[last];
+            wallStop[i] = wallStop[last];
+            wallDirection[i] = wallDirection[last];
+            wallMoving[i] = wallMoving[last];
+            wallDrawn[i] = wallDrawn[last];
+
+            Wall moved = walls.get(last);
+            moved.setIndex(i);
+            walls.set(i, moved);
+        }
+        walls.remove(last);
+        spareWalls.add(removed);
+    }
+
+    /**
+     * Remove every ball from the store
+     */
+    public void clearBalls() {
+        ballCount = 0;
+        balls.clear();
+    }
+
+    /**
+     * Remove every wall from the store
+     */
+    public void clearWalls() {
+        wallCount = 0;
+        for (int i = 0; i < walls.size(); i++) {
+            spareWalls.add(walls.get(i));
+        }
+        walls.clear();
+    }
+
+    /**
+     * Return how many bytes write() will need for what's in the store now
+     */
+    public int getSnapshotSize() {
+        return 8 + ballCount * BALL_BYTES + wallCount * WALL_BYTES;
+    }
+
+    /**
+     * Write every ball and then every wall to the buffer, each list after its count.
+     * Positions are kept at full precision, so a store read back carries on exactly as
+     * this one would.
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(ballCount);
+        for (int i = 0; i < ballCount; i++) {
+            buffer.putDouble(ballX[i]).putDouble(ballY[i]);
+            buffer.putDouble(ballPrevX[i]).putDouble(ballPrevY[i]);
+            buffer.putDouble(ballDx[i]).putDouble(ballDy[i]);
+            buffer.putInt(ballRadius[i]).putFloat(ballRotation[i]);
+        }
+
+        buffer.putInt(wallCount);
+        for (int i = 0; i < wallCount; i++) {
+            buffer.putFloat(wallStartX[i]).putFloat(wallStartY[i]);
+            buffer.putFloat(wallThickness[i]);
+            buffer.putFloat(wallLeft[i]).putFloat(wallTop[i]);
+            buffer.putFloat(wallRight[i]).putFloat(wallBottom[i]);
+            buffer.putInt(wallLength[i]).putFloat(wallIncrement[i]);
+            buffer.put((byte) wallDirection[i].ordinal());
+            buffer.put((byte) (wallMoving[i] ? 1 : 0));
+            buffer.put((byte) (wallDrawn[i] ? 1 : 0));
+            buffer.putInt(walls.get(i).getColor());
+        }
+    }
+
+    /**
+     * Replace everything in the store with the balls and walls written by write().
+     * Which square each ball is in is left for the GameEngine to work out.
+     */
+    public void read(ByteBuffer buffer) {
+        clearBalls();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            double x = buffer.getDouble();
+            double y = buffer.getDouble();
+            double prevX = buffer.getDouble();
+            double prevY = buffer.getDouble();
+            double dx = buffer.getDouble();
+            double dy = buffer.getDouble();
+            addBall(x, y, dx, dy, buffer.getInt());
+            ballPrevX[i] = prevX;
+            ballPrevY[i] = prevY;
+            ballRotation[i] = buffer.getFloat();
+        }
+
+        clearWalls();
+        Direction[] directions = Direction.values();
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            float startX = buffer.getFloat();
+            float startY = buffer.getFloat();
+            float thickness = buffer.getFloat();
+            float left = buffer.getFloat();
+            float top = buffer.getFloat();
+            float right = buffer.getFloat();
+            float bottom = buffer.getFloat();
+            int length = buffer.getInt();
+            float increment = buffer.getFloat();
+            Direction direction = directions[buffer.get()];
+            boolean moving = buffer.get() != 0;
+            boolean drawn = buffer.get() != 0;
+            addWall(startX, startY, thickness, direction, buffer.getInt());
+            wallLeft[i] = left;
+            wallTop[i] = top;
+            wallRight[i] = right;
+            wallBottom[i] = bottom;
+            wallLength[i] = length;
+            wallIncrement[i] = increment;
+            wallMoving[i] = moving;
+            wallDrawn[i] = drawn;
+        }
+    }
+
+    /**
+     * Return the views over every ball, in store order
+     */
+    public ArrayList<Ball> getBalls() {
+        return balls;
+    }
+
+    /**
+     * Return the views over every wall, in store order
+     */
+    public ArrayList<Wall> getWalls() {
+        return walls;
+    }
+
+    /**
+     * Remember where every ball is before a tick moves them, so rendering can
+     * interpolate between the last two ticks.
+     */
+    public void savePositions() {
+        System.arraycopy(ballX, 0, ballPrevX, 0, ballCount);
+        System.arraycopy(ballY, 0, ballPrevY, 0, ballCount);
+    }
+
+    /**
+     * Move the ball at the given index along its current velocity for t seconds.
+     * Collisions are the GameEngine's job, this only integrates.
+     */
+    public void advanceBall(int i, double t) {
+        ballX[i] += ballDx[i] * t;
+        ballY[i] += ballDy[i] * t;
+    }
+
+    /**
+     * Turn the ball at the given index for dt seconds. A super simple calculation that
+     * gives a ball rotation that looks "close enough" to realistic.
+     */
+    public void spinBall(int i, float dt) {
+        if (ballDx[i] > 0) {
+            ballRotation[i] += ROTATION_SPEED * dt;
+        } else {
+            ballRotation[i] -= ROTATION_SPEED * dt;
+        }
+    }
+
+    /**
+     * Determines if the balls at the two given indices collide within the next dt
+     * seconds and updates their dx and dy if they do. See Ball.ballCollisionAdjustment.
+     * <p>
+     * If the balls aren't touching yet, the time of impact is found by sweeping one
+     * circle against the other along their relative velocity. The bounce is worked out
+     * where the balls meet, and both balls are shifted back so that moving them with
+     * their new velocity for the whole step leaves them where they would have ended
+     * up travelling the old velocity until the impact and the new one after it. A dt
+     * of 0 only collides balls that already overlap.
+     */
+    public void collideBalls(int a, int b, float dt) {
+        double xDist = ballX[a] - ballX[b];
+        double yDist = ballY[a] - ballY[b];
+        double xVelocity = ballDx[b] - ballDx[a];
+        double yVelocity = ballDy[b] - ballDy[a];
+        int reach = ballRadius[a] + ballRadius[b];
+        double impact = 0;
+
+        double gap = xDist * xDist + yDist * yDist - reach * reach;
+        if (gap > 0) {
+            // not touching yet. Solve |dist - velocity * t| = reach for the first t.
+            double closing = xDist * xVelocity + yDist * yVelocity;
+            double speedSquared = xVelocity * xVelocity + yVelocity * yVelocity;
+            double discriminant = closing * closing - speedSquared * gap;
+            if (closing <= 0 || discriminant < 0) {
+                return; // moving apart, or passing by each other
+            }
+            impact = (closing - Math.sqrt(discriminant)) / speedSquared;
+            if (impact > dt) {
+                return; // won't meet this step
+            }
+            xDist -= xVelocity * impact;
+            yDist -= yVelocity * impact;
+        }
+
+        double oldDxA = ballDx[a];
+        double oldDyA = ballDy[a];
+        double oldDxB = ballDx[b];
+        double oldDyB = ballDy[b];
+        collideAt(a, b, xDist, yDist);
+
+        ballX[a] += (oldDxA - ballDx[a]) * impact;
+        ballY[a] += (oldDyA - ballDy[a]) * impact;
+        ballX[b] += (oldDxB - ballDx[b]) * impact;
+        ballY[b] += (oldDyB - ballDy[b]) * impact;
+    }
+
+    /*
+     * Update the dx and dy of two touching balls, given the vector between their
+     * centers at the moment they touch.
+     */
+    private void collideAt(int a, int b, double xDist, double yDist) {
+        double distSquared = xDist * xDist + yDist * yDist;
+        // calculate the resulting collision vector
+        double xVelocity = ballDx[b] - ballDx[a];
+        double yVelocity = ballDy[b] - ballDy[a];
+        double dotProduct = xDist * xVelocity + yDist * yVelocity;
+
+        if (dotProduct > 0) {
+            // scale the collision vector and adjust dx and dy of balls
+            double normalize = dotProduct / distSquared;
+            double xCollision = xDist * normalize;
+            double yCollision = yDist * normalize;
+
+            ballDx[a] += xCollision;
+            ballDy[a] += yCollision;
+            ballDx[b] -= xCollision;
+            ballDy[b] -= yCollision;
+        }
+    }
+
+    /**
+     * Work out where the wall at the given index will stop, by walking the board from
+     * its first square in its Direction until a blocked square or the edge of the game
+     * area. Called once when the wall is placed. Stopped walls are baked into the board
+     * and the other wall of a pair grows the other way, so nothing a growing wall could
+     * run into changes while it grows.
+     */
+    public void aimWall(int i, Board board, float dimension) {
+        int column = (int) Math.floor(wallStartX[i] / dimension);
+        int row = (int) Math.floor((wallStartY[i] - boardTop) / dimension);
+        wallStop[i] = findStop(board, dimension, row, column, wallDirection[i]);
+    }
+
+    /**
+     * Return the coordinate a wall growing from the given grid square in the given
+     * Direction would stop at: the near edge of the first blocked square it meets, or
+     * the edge of the game area if nothing is in the way. An x coordinate for Left and
+     * Right, a y coordinate for Up and Down.
+     */
+    public float findStop(Board board, float dimension, int row, int column,
+                          Direction direction) {
+        switch (direction) {
+            case Left:
+                for (int j = Math.min(column, board.getColumns() - 1); j >= 0; j--) {
+                    if (isBlocked(board, row, j)) {
+                        return (j + 1) * dimension;
+                    }
+                }
+                break;
+            case Right:
+                for (int j = Math.max(column, 0); j < board.getColumns(); j++) {
+                    if (isBlocked(board, row, j)) {
+                        return j * dimension;
+                    }
+                }
+                break;
+            case Up:
+                for (int k = Math.min(row, board.getRows() - 1); k >= 0; k--) {
+                    if (isBlocked(board, k, column)) {
+                        return (k + 1) * dimension + boardTop;
+                    }
+                }
+                break;
+            case Down:
+                for (int k = Math.max(row, 0); k < board.getRows(); k++) {
+                    if (isBlocked(board, k, column)) {
+                        return k * dimension + boardTop;
+                    }
+                }
+                break;
+        }
+        return edgeOf(direction);
+    }
+
+    /**
+     * Called every "tick" by the GameEngine, this method updates the length of the
+     * wall at the given index and checks to see if it has reached either the edge of
+     * the game area or the stop aimWall() found for it. Updates its moving state if
+     * so.
+     */
+    public void growWall(int i, float dt) {
+        float thickness = wallThickness[i];
+
+        // only increase length once the wall can grow to the next multiple of its
+        // thickness
+        wallIncrement[i] += WALL_SPEED * dt;
+        if (wallIncrement[i] < thickness) {
+            return;
+        }
+        wallIncrement[i] = 0;
+        wallLength[i] += thickness;
+
+        float startX = wallStartX[i];
+        float startY = wallStartY[i];
+        float left = startX;
+        float top = startY;
+        float right = startX + thickness;
+        float bottom = startY + thickness;
+        float stop = wallStop[i];
+
+        // work out where the wall will be after this tick, keeping it within bounds.
+        // If it's gone past its stop, it stops right there.
+        switch (wallDirection[i]) {
+            case Left:
+                left = Math.max(0, wallLeft[i] - wallLength[i]);
+                if (left < stop) {
+                    left = stop;
+                    wallMoving[i] = false;
+                }
+                break;
+            case Right:
+                right = Math.min(width, wallRight[i] + wallLength[i]);
+                if (right > stop) {
+                    right = stop;
+                    wallMoving[i] = false;
+                }
+                break;
+            case Up:
+                top = Math.max(boardTop, wallTop[i] - wallLength[i]);
+                if (top < stop) {
+                    top = stop;
+                    wallMoving[i] = false;
+                }
+                break;
+            case Down:
+                bottom = Math.min(height, wallBottom[i] + wallLength[i]);
+                if (bottom > stop) {
+                    bottom = stop;
+                    wallMoving[i] = false;
+                }
+                break;
+        }
+
+        wallLeft[i] = left;
+        wallTop[i] = top;
+        wallRight[i] = right;
+        wallBottom[i] = bottom;
+
+        // hit the top or bottom
+        if (wallDirection[i] == Direction.Down || wallDirection[i] == Direction.Up) {
+            if (top <= boardTop || bottom >= height) {
+                wallMoving[i] = false;
+            }
+        }
+
+        // hit the left or right
+        if (wallDirection[i] == Direction.Left || wallDirection[i] == Direction.Right) {
+            if (left <= 0 || right >= width) {
+                wallMoving[i] = false;
+            }
+        }
+    }
+
+    /*
+     * Return the edge of the game area a wall growing in the given Direction ends at
+     */
+    private float edgeOf(Direction direction) {
+        switch (direction) {
+            case Left:
+                return 0;
+            case Right:
+                return width;
+            case Up:
+                return boardTop;
+            default:
+                return height;
+        }
+    }
+
+    /*
+     * Return true if the given grid square is a wall or already revealed. Squares off
+     * the grid are never blocked, the edges of the game area are handled separately.
+     */
+    private boolean isBlocked(Board board, int row, int column) {
+        return board.isOnBoard(row, column) && !board.isOpen(row, column);
+    }
+
+    /*
+     * Reallocate the ball arrays with room for the given number of balls
+     */
+    private void growBalls(int capacity) {
+        ballX = copyOf(ballX, capacity);
+        ballY = copyOf(ballY, capacity);
+        ballPrevX = copyOf(ballPrevX, capacity);
+        ballPrevY = copyOf(ballPrevY, capacity);
+        ballDx = copyOf(ballDx, capacity);
+        ballDy = copyOf(ballDy, capacity);
+
+        int[] radius = new int[capacity];
+        float[] rotation = new float[capacity];
+        int[] square = new int[capacity];
+        if (ballRadius != null) {
+            System.arraycopy(ballRadius, 0, radius, 0, ballCount);
+            System.arraycopy(ballRotation, 0, rotation, 0, ballCount);
+            System.arraycopy(ballSquare, 0, square, 0, ballCount);
+        }
+        ballRadius = radius;
+        ballRotation = rotation;
+        ballSquare = square;
+    }
+
+    /*
+     * Reallocate the wall arrays with room for the given number of walls
+     */
+    private void growWalls(int capacity) {
+        wallStartX = copyOf(wallStartX, capacity);
+        wallStartY = copyOf(wallStartY, capacity);
+        wallThickness = copyOf(wallThickness, capacity);
+        wallLeft = copyOf(wallLeft, capacity);
+        wallTop = copyOf(wallTop, capacity);
+        wallRight = copyOf(wallRight, capacity);
+        wallBottom = copyOf(wallBottom, capacity);
+        wallStop = copyOf(wallStop, capacity);
+
+        int[] length = new int[capacity];
+        float[] increment = new float[capacity];
+        Direction[] direction = new Direction[capacity];
+        boolean[] moving = new boolean[capacity];
+        boolean[] drawn = new boolean[capacity];
+        if (wallLength != null) {
+            System.arraycopy(wallLength, 0, length, 0, wallCount);
+            System.arraycopy(wallIncrement, 0, increment, 0, wallCount);
+            System.arraycopy(wallDirection, 0, direction, 0, wallCount);
+            System.arraycopy(wallMoving, 0, moving, 0, wallCount);
+            System.arraycopy(wallDrawn, 0, drawn, 0, wallCount);
+        }
+        wallLength = length;
+        wallIncrement = increment;
+        wallDirection = direction;
+        wallMoving = moving;
+        wallDrawn = drawn;
+    }
+
+    /*
+     * Copy the given array into a new one of the given length. A null array is
+     * treated as empty.
+     */
+    private static double[] copyOf(double[] array, int length) {
+        double[] copy = new double[length];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        }
+        return copy;
+    }
+
+    private static float[] copyOf(float[] array, int length) {
+        float[] copy = new float[length];
+        if (array != null) {
+            System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,89 @@
+package edu.bloomu.animationtest.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The things that happen in a GameEngine that the rest of the app wants to hear about,
+ * like a life being lost or the level being won, so nothing has to compare the
+ * engine's numbers from one frame to the next to notice them.
+ * <p>
+ * Events are a kind and an int value packed into one long, in a ring of slots
+ * allocated up front. Only the engine's thread publishes and only one thread drains,
+ * so the two ends each own a counter and never need a lock: the publisher writes a
+ * slot and then moves the tail past it, and the drainer reads up to the tail and then
+ * moves the head. If the drainer falls a whole ring behind, new events are dropped
+ * rather than holding up the engine.
+ */
+
+public final class EventQueue {
+
+    // kinds of event, and what their value is
+    public static final int WALL_DESTROYED = 0; // walls removed
+    public static final int LIFE_LOST = 1; // lives left
+    public static final int REGION_REVEALED = 2; // squares revealed
+    public static final int LEVEL_WON = 3; // the level won
+    public static final int GAME_OVER = 4; // the level it ended on
+
+    /**
+     * Handed every event in order by drain()
+     */
+    public interface Listener {
+        void onEvent(int kind, int value);
+    }
+
+    private final long[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next event to drain
+    private final AtomicLong tail = new AtomicLong(); // next slot to publish to
+    private long knownHead; // the publisher's last look at head, saves reading it
+    private volatile int dropped;
+
+    /**
+     * Create a queue with room for at least the given number of undrained events
+     */
+    public EventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new long[size];
+        mask = size - 1;
+    }
+
+    /*
+     * Add an event to the queue. Returns false, and counts it as dropped, if the queue
+     * is full. Only ever called from the engine's thread.
+     */
+    boolean publish(int kind, int value) {
+        long next = tail.get();
+        if (next - knownHead == slots.length) {
+            knownHead = head.get();
+            if (next - knownHead == slots.length) {
+                dropped++;
+                return false;
+            }
+        }
+        slots[(int) next & mask] = (long) kind << 32 | (value & 0xFFFFFFFFL);
+        tail.lazySet(next + 1);
+        return true;
+    }
+
+    /**
+     * Hand every event published so far to the listener, oldest first, and return how
+     * many there were. Only one thread may drain a queue.
+     */
+    public int drain(Listener listener) {
+        long first = head.get();
+        long last = tail.get();
+        for (long i = first; i < last; i++) {
+            long event = slots[(int) i & mask];
+            listener.onEvent((int) (event >>> 32), (int) event);
+        }
+        head.lazySet(last);
+        return (int) (last - first);
+    }
+
+    /**
+     * Return how many events have been dropped because the queue was full
+     */
+    public int getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,203 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * A copy of everything needed to draw one tick of a GameEngine: the balls, the walls
+ * still growing, the board and the numbers in the heading. The engine fills one in
+ * with writeFrame() on the thread that ticks it, and a FrameBuffer hands it over to the
+ * thread that draws, which then reads it without ever touching the engine.
+ * <p>
+ * Frames are reused, so the arrays only grow. The board is only copied when its
+ * version has changed since this frame last copied it, which is rarely.
+ */
+
+public final class Frame {
+
+    private long tick;
+    private long publishedNanos;
+    private int scorePercentage;
+    private int lives;
+    private int level;
+
+    private int ballCount;
+    private float[] ballPrevX = new float[0];
+    private float[] ballPrevY = new float[0];
+    private float[] ballX = new float[0];
+    private float[] ballY = new float[0];
+    private float[] ballRotation = new float[0];
+    private int[] ballRadius = new int[0];
+
+    // only the walls still growing, stopped walls are already on the board
+    private int wallCount;
+    private float[] wallLeft = new float[0];
+    private float[] wallTop = new float[0];
+    private float[] wallRight = new float[0];
+    private float[] wallBottom = new float[0];
+    private int[] wallColor = new int[0];
+
+    private Board board;
+    private int boardVersion = -1;
+
+    /*
+     * Copy the state of the engine's entities and board into this frame
+     */
+    void capture(EntityStore store, Board source, long tick, int scorePercentage,
+                 int lives, int level) {
+        this.tick = tick;
+        this.scorePercentage = scorePercentage;
+        this.lives = lives;
+        this.level = level;
+
+        ballCount = store.ballCount;
+        if (ballX.length < ballCount) {
+            int capacity = Math.max(ballCount, ballX.length * 2);
+            ballPrevX = new float[capacity];
+            ballPrevY = new float[capacity];
+            ballX = new float[capacity];
+            ballY = new float[capacity];
+            ballRotation = new float[capacity];
+            ballRadius = new int[capacity];
+        }
+        for (int i = 0; i < ballCount; i++) {
+            ballPrevX[i] = (float) store.ballPrevX[i];
+            ballPrevY[i] = (float) store.ballPrevY[i];
+            ballX[i] = (float) store.ballX[i];
+            ballY[i] = (float) store.ballY[i];
+            ballRotation[i] = store.ballRotation[i];
+            ballRadius[i] = store.ballRadius[i];
+        }
+
+        if (wallLeft.length < store.wallCount) {
+            int capacity = Math.max(store.wallCount, wallLeft.length * 2);
+            wallLeft = new float[capacity];
+            wallTop = new float[capacity];
+            wallRight = new float[capacity];
+            wallBottom = new float[capacity];
+            wallColor = new int[capacity];
+        }
+        wallCount = 0;
+        for (int i = 0; i < store.wallCount; i++) {
+            if (store.wallMoving[i]) {
+                wallLeft[wallCount] = store.wallLeft[i];
+                wallTop[wallCount] = store.wallTop[i];
+                wallRight[wallCount] = store.wallRight[i];
+                wallBottom[wallCount] = store.wallBottom[i];
+                wallColor[wallCount] = store.getWalls().get(i).getColor();
+                wallCount++;
+            }
+        }
+
+        if (board == null) {
+            board = new Board(source.getRows(), source.getColumns());
+        }
+        if (boardVersion != source.getVersion()) {
+            board.copyFrom(source);
+            boardVersion = source.getVersion();
+        }
+    }
+
+    /*
+     * Set when this frame was handed over, by the FrameBuffer
+     */
+    void setPublishedNanos(long publishedNanos) {
+        this.publishedNanos = publishedNanos;
+    }
+
+    /**
+     * Return the engine tick this frame was taken after
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Return the System.nanoTime() this frame was published at, to work out how far
+     * the next tick has got when it's drawn
+     */
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    public int getScoreAsPercentage() {
+        return scorePercentage;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getBallCount() {
+        return ballCount;
+    }
+
+    /**
+     * Return the x coordinate to draw ball i's center at, alpha of the way from where
+     * it was before this tick to where it is after it
+     */
+    public float getBallX(int i, float alpha) {
+        return ballPrevX[i] + (ballX[i] - ballPrevX[i]) * alpha;
+    }
+
+    /**
+     * Return the y coordinate to draw ball i's center at. See getBallX().
+     */
+    public float getBallY(int i, float alpha) {
+        return ballPrevY[i] + (ballY[i] - ballPrevY[i]) * alpha;
+    }
+
+    public float getBallRotation(int i) {
+        return ballRotation[i];
+    }
+
+    public int getBallRadius(int i) {
+        return ballRadius[i];
+    }
+
+    /**
+     * Return the number of walls still growing
+     */
+    public int getWallCount() {
+        return wallCount;
+    }
+
+    public float getWallLeft(int i) {
+        return wallLeft[i];
+    }
+
+    public float getWallTop(int i) {
+        return wallTop[i];
+    }
+
+    public float getWallRight(int i) {
+        return wallRight[i];
+    }
+
+    public float getWallBottom(int i) {
+        return wallBottom[i];
+    }
+
+    /**
+     * Return the color to draw wall i in, as an ARGB int
+     */
+    public int getWallColor(int i) {
+        return wallColor[i];
+    }
+
+    /**
+     * Return this frame's copy of the board. It belongs to the frame, and changes the
+     * next time the frame is reused.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Return the version of the engine's board this frame's copy was made from
+     */
+    public int getBoardVersion() {
+        return boardVersion;
+    }
+}
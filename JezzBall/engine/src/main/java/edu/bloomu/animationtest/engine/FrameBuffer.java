@@ -0,0 +1,54 @@
+package edu.bloomu.animationtest.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands Frames from the thread that ticks a GameEngine to the thread that draws it,
+ * without either ever waiting on the other. There are three frames: the producer fills
+ * in the back one, the consumer draws the front one, and the third sits in the middle
+ * holding the newest frame published. Publishing swaps the back frame into the middle
+ * and taking the latest swaps the middle into the front, each in a single atomic step,
+ * so neither thread can see a frame the other is still using.
+ * <p>
+ * If the producer publishes several frames between two draws, the ones in between are
+ * simply overwritten; if the consumer draws faster than frames come in, it draws the
+ * same frame again.
+ */
+
+public final class FrameBuffer {
+
+    // set on the middle index when it holds a frame the consumer hasn't taken yet
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0; // only touched by the producer
+    private int front = 2; // only touched by the consumer
+
+    /**
+     * Return the frame the producer should fill in next
+     */
+    public Frame getBack() {
+        return frames[back];
+    }
+
+    /**
+     * Make the back frame the latest one, and give the producer another to fill in
+     */
+    public void publish() {
+        frames[back].setPublishedNanos(System.nanoTime());
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Return the newest frame published. It's the consumer's to read until the next
+     * call.
+     */
+    public Frame getLatest() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return frames[front];
+    }
+}
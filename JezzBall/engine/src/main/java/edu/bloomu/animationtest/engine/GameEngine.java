@@ -0,0 +1,1246 @@
+package edu.bloomu.animationtest.engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class to handle all game logic, including tracking and updating of:
+ * Score, lives and current level
+ * Relative and absolute locations of all entities
+ * Interaction between entities (erase a wall, collisions)
+ * Touch screen input when application is in GameState.Game_Active state.
+ * <p>
+ * GameEngine object is created once and only once through sequence MainActivity ->
+ * GameView -> GameManager -> GameEngine.
+ * As such, updating levels or restarting after a game over is done by updating this
+ * game object.
+ * <p>
+ * Nothing here depends on Android. Where the board sits on screen comes in through a
+ * BoardLayout, and there's no static state that changes, so any number of engines can
+ * run side by side on a plain JVM.
+ * <p>
+ * Every random number comes from a seed, so the same seed and the same inputs on the
+ * same ticks always play out the same way. The engine records its inputs as it goes;
+ * see Replay.
+ * <p>
+ * A game in progress can be saved to a small binary snapshot with writeSnapshot() and
+ * picked back up with readSnapshot(), which rebuilds the engine around the saved state
+ * rather than starting a new game.
+ *
+ * @author Dakotah Kurtz
+ */
+
+public class GameEngine {
+
+    public static final int WALL_TOUCH_INTENTION = 20;
+    // the simulation always advances in steps of this many seconds, regardless of how
+    // often frames are drawn
+    public static final float TICK_SECONDS = 1 / 60f;
+    // longer ticks are broken up into steps no bigger than this, which bounds how far
+    // a ball can travel between collision checks
+    public static final float MAX_STEP_SECONDS = 1 / 15f;
+    private final BoardLayout layout;
+    private final float width;
+    private final float height;
+    private final int boardTop; // y coordinate of the first row of the grid
+    private final int padding;
+
+    // Minimum dimension of the board regardless of screen size
+    private final static int NARROW_SIZE = 30;
+    private final int wideSize;
+
+    // ball and wall state, held as parallel arrays. Walls in the store are the set
+    // currently being drawn; they're removed once every one of them has stopped.
+    private final EntityStore entities;
+    private final SpatialHash ballHash;
+    // a pair of walls placed from the UI thread, waiting for tick() to pick them up
+    private final Object pendingLock = new Object();
+    private boolean wallPending;
+    private float pendingX;
+    private float pendingY;
+    private boolean pendingHorizontal;
+    private final Board board;
+    // which region each open square of the grid belongs to
+    private final RegionMap regions;
+
+    private final int ballRadius;
+    private final float dimension;
+    private final static int BALL_SPEED = 210; // pixels per second
+    // give up placing a ball after this many overlapping attempts, so a crowded board
+    // can't hang init()
+    private final static int MAX_PLACEMENT_ATTEMPTS = 500;
+    // most bounces a single ball can make off walls and edges in one step. A ball
+    // wedged in a corner stops for the rest of the step rather than looping forever.
+    private final static int MAX_IMPACTS = 4;
+    // how far a ball may already be pushed into a square from rounding and still be
+    // treated as touching it
+    private final static double CONTACT_SLOP = 1e-6;
+    // surface normal of the last hit found by sweepCircle
+    private double hitNormalX;
+    private double hitNormalY;
+
+    private final static int STARTING_LIVES = 3;
+    private final static int STARTING_LEVEL = 1;
+    private final static double WINNING_PERCENTAGE = .65;
+    private final static int CHAOS_BALLS_PER_LEVEL = 25;
+    private boolean chaosMode;
+    private final int winningScore;
+    private final long seed;
+    private final Random random;
+    private int inits; // times init() has run, each one reseeds random from seed
+    private long tickCount; // ticks run since the engine was created
+    private final Replay replay;
+    // room for far more events than a few ticks could ever publish
+    private final static int EVENT_CAPACITY = 256;
+    private final EventQueue events = new EventQueue(EVENT_CAPACITY);
+    private int score;
+    private int level;
+    private int lives;
+    private boolean gameOver;
+
+    // colors of the two halves of a wall pair, as ARGB
+    private final static int RED = 0xFFFF0000;
+    private final static int BLUE = 0xFF0000FF;
+
+    // start of every snapshot, "JZSN", followed by the format version
+    private final static int SNAPSHOT_MAGIC = 0x4A5A534E;
+    private final static int SNAPSHOT_VERSION = 2;
+    private final static int SNAPSHOT_HEADER_BYTES = 4 + 4 + 4 * 4 + 1 + 8 + 4 + 8 + 4 + 4 + 1;
+    // where the mode is, so a snapshot can be read back in whichever mode it was in
+    private final static int SNAPSHOT_MODE_AT = 4 + 4 + 4 * 4;
+    // everything up to and including the seed, which only a new engine needs to read
+    private final static int SNAPSHOT_SEED_END = 4 + 4 + 4 * 4 + 1 + 8;
+
+    public GameEngine(BoardLayout layout, boolean chaosMode) {
+        this(layout, chaosMode, new Random().nextLong());
+    }
+
+    /**
+     * Create an engine that draws every random number from the given seed. Two engines
+     * with the same layout, mode and seed start out identical.
+     */
+    public GameEngine(BoardLayout layout, boolean chaosMode, long seed) {
+        this(layout, chaosMode, seed, true);
+    }
+
+    /*
+        Set up an engine for the given layout. A new game is only started if newGame is
+        true; readSnapshot() fills in the rest itself.
+     */
+    private GameEngine(BoardLayout layout, boolean chaosMode, long seed,
+                       boolean newGame) {
+        this.layout = layout;
+        width = layout.getWidth();
+        height = layout.getHeight();
+        boardTop = layout.getTop();
+        padding = layout.getPadding();
+        this.chaosMode = chaosMode;
+        this.seed = seed;
+        random = new Random(seed);
+        replay = new Replay(layout, chaosMode, seed);
+
+        lives = STARTING_LIVES;
+        level = STARTING_LEVEL;
+        gameOver = false;
+
+        entities = new EntityStore(layout);
+
+        // calculate dimensions of each grid square to fit the maximum number into the 
+        // available screen, such that the narrow dimension is 30 and the absolute size
+        // is as large as possible.
+        float narrow = Math.min(width, height);
+        float wide = Math.max(width, height) - boardTop;
+        dimension = narrow / NARROW_SIZE;
+        wideSize = (int) (wide / dimension);
+        board = new Board(wideSize, NARROW_SIZE);
+        regions = new RegionMap(board);
+
+        ballRadius = (int) Math.floor(dimension * .9);
+        winningScore = (int) (wideSize * NARROW_SIZE * WINNING_PERCENTAGE);
+
+        // hash cells are a whole number of grid squares, wide enough for a ball plus
+        // the distance two balls can close on each other in one step, so balls that
+        // could meet during a step are always in the same or neighbouring cells.
+        // Collisions can speed a ball up, so allow each up to double BALL_SPEED.
+        float reach = 2 * ballRadius + 4 * BALL_SPEED * MAX_STEP_SECONDS;
+        float cellSize = dimension * (float) Math.ceil(reach / dimension);
+        ballHash = new SpatialHash(cellSize, 0, boardTop, width, height - boardTop);
+
+        if (newGame) {
+            init();
+        }
+    }
+
+    /**
+     * Increment the level and add a life, clear the game board and update game-over so
+     * the GameManager knows to start ticking again.
+     */
+    public void nextLevel() {
+        nextLevel(null);
+    }
+
+    /**
+     * Plan the level after this one, to be set up ahead of time with
+     * PreparedLevel.prepare() and moved on to with nextLevel(PreparedLevel).
+     */
+    public PreparedLevel planNextLevel() {
+        return new PreparedLevel(layout, chaosMode, seed, level + 1, inits);
+    }
+
+    /**
+     * Same as nextLevel(), but takes the balls from a level set up ahead of time, as
+     * long as it has been set up and is still the level after this one. Otherwise,
+     * or if next is null, the level is set up here as usual.
+     */
+    public void nextLevel(PreparedLevel next) {
+        GameEngine prepared = next == null ? null : next.getPrepared();
+        if (prepared != null && (next.layout != layout || next.chaosMode != chaosMode
+                || next.seed != seed || next.level != level + 1 || next.inits != inits)) {
+            prepared = null; // the game has moved on since it was planned
+        }
+
+        replay.addEvent(tickCount, Replay.NEXT_LEVEL);
+        level++;
+        lives++;
+        gameOver = false;
+
+        init(prepared);
+    }
+
+    /*
+        Put a scratch engine at the start of the given level, as if init() had already
+        run the given number of times. Used by PreparedLevel.
+     */
+    void setUpLevel(int level, int inits) {
+        this.level = level;
+        this.inits = inits;
+        init();
+    }
+
+    /**
+     * Initialize game, both in constructor, upon a level completion, and after a game
+     * over. Clears all ArrayLists, sets score to 0, returns the board to
+     * original state.
+     */
+    public void init() {
+        init(null);
+    }
+
+    /*
+        Start a game on a clear board. The balls are placed here, unless they've
+        already been placed in a scratch engine that started the same game.
+     */
+    private void init(GameEngine prepared) {
+
+        // every game starts from its own seed, so a snapshot only needs to know how
+        // many games there have been to carry on drawing the same numbers
+        random.setSeed(seed ^ (inits++ * 0x9E3779B97F4A7C15L));
+        score = 0;
+        entities.clearWalls();
+        entities.clearBalls();
+        regions.clearBalls();
+        synchronized (pendingLock) {
+            wallPending = false;
+        }
+
+        board.fill(Board.OPEN);
+        regions.rebuild();
+
+        if (prepared == null) {
+            // one ball per level, or a crowd of them in chaos mode
+            addBalls(chaosMode ? level * CHAOS_BALLS_PER_LEVEL : level);
+            return;
+        }
+        EntityStore balls = prepared.entities;
+        for (int i = 0; i < balls.ballCount; i++) {
+            entities.addBall(balls.ballX[i], balls.ballY[i], balls.ballDx[i],
+                    balls.ballDy[i], balls.ballRadius[i]);
+            entities.ballSquare[i] = balls.ballSquare[i];
+            regions.addBall(balls.ballSquare[i]);
+        }
+    }
+
+    /**
+     * Add the given number of balls at random locations that don't overlap any ball
+     * already in play. If the board is too crowded to find room for a ball, stops
+     * adding balls early. Public so benchmarks can crowd the board beyond what a
+     * level would give.
+     */
+    public void addBalls(int count) {
+        double dx;
+        double dy;
+
+        // balls are added with some randomness, drawn from the seed
+        int x, y;
+        double theta;
+        boolean intersects;
+        int attempts;
+        for (int i = 0; i < count; i++) {
+            attempts = 0;
+            do {
+                if (++attempts > MAX_PLACEMENT_ATTEMPTS) {
+                    return; // no room left
+                }
+                x = nextInt(ballRadius * 3, (int) (width - (ballRadius * 3)));
+                y = nextInt(ballRadius * 3 + boardTop, (int) (height - (ballRadius * 3)));
+                // never start a ball inside a wall or a revealed region
+                intersects = !hasRoom(x, y);
+                // go through current balls already added and ensure the next ball
+                // doesn't overlap with any
+                for (int j = 0; j < entities.ballCount && !intersects; j++) {
+                    if (Math.abs(entities.ballX[j] - x) < entities.ballRadius[j] + ballRadius
+                            && Math.abs(entities.ballY[j] - y)
+                            < entities.ballRadius[j] + ballRadius) {
+                        intersects = true;
+                    }
+                }
+
+            } while (intersects);
+            // random angle for the ball to travel in, scale dx and dy based off of
+            // angle and intended ball speed
+            theta = .1 + random.nextDouble() * (3 - .1);
+//                theta = 0;
+            if (random.nextBoolean()) {
+                theta *= -1;
+            }
+            dx = BALL_SPEED * Math.cos(theta);
+            dy = BALL_SPEED * Math.sin(theta);
+
+            entities.addBall(x, y, dx, dy, ballRadius);
+            int square = squareOf(x, y);
+            entities.ballSquare[entities.ballCount - 1] = square;
+            regions.addBall(square);
+        }
+    }
+
+    /*
+        Return a random int from origin up to but not including bound
+     */
+    private int nextInt(int origin, int bound) {
+        return origin + random.nextInt(bound - origin);
+    }
+
+    /*
+        Return true if none of the grid squares a new ball centered at x, y would cover
+        are closed. Squares off the grid don't count, a ball can sit in the strip below
+        the last row.
+     */
+    private boolean hasRoom(float x, float y) {
+        int firstRow = scaleToGridY(y - ballRadius);
+        int lastRow = scaleToGridY(y + ballRadius);
+        int firstColumn = scaleToGridX(x - ballRadius);
+        int lastColumn = scaleToGridX(x + ballRadius);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                if (board.isOnBoard(row, column) && !board.isOpen(row, column)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return current ArrayList of balls in play
+     */
+    public ArrayList<Ball> getBalls() {
+        return entities.getBalls();
+    }
+
+    /**
+     * Return the current walls Arraylist, holding the set of walls currently being
+     * drawn. Walls placed by touch are handed over to the game thread in tick(), so
+     * the list is only ever changed by the thread that ticks the engine.
+     */
+    public ArrayList<Wall> getWalls() {
+        return entities.getWalls();
+    }
+
+    /**
+     * Called every time the GameView thread updates when the GameManager's gameState
+     * is GameState.GAME_ACTIVE. Advances the game by one fixed step of TICK_SECONDS.
+     */
+    public void tick() {
+        tick(TICK_SECONDS);
+    }
+
+    /**
+     * Advance the game by dt seconds. Updates all entities in the current game. If a
+     * moving wall is hit by a ball, removes it. If no walls are moving, check to see
+     * if a new portion of the map has been cleared. Anything longer than
+     * MAX_STEP_SECONDS is run as several shorter steps.
+     */
+    public void tick(float dt) {
+        while (dt > MAX_STEP_SECONDS && !gameOver) {
+            step(MAX_STEP_SECONDS);
+            dt -= MAX_STEP_SECONDS;
+        }
+        if (!gameOver) {
+            step(dt);
+        }
+        tickCount++;
+    }
+
+    /*
+        A single step of the game of dt seconds. Collisions are swept over the whole
+        step, so a ball can't skip past a wall or another ball however long dt is.
+     */
+    private void step(float dt) {
+        EntityStore e = entities;
+        boolean wallHit = false;
+
+        // start growing any walls the user has placed since the last tick
+        synchronized (pendingLock) {
+            // they were queued from a frame that may be a tick or two old, so make
+            // sure nothing has been placed or walled off there since
+            if (wallPending && e.wallCount == 0 && isOpenSquare(board,
+                    pendingX + dimension / 2, pendingY + dimension / 2)) {
+                placeWalls(pendingX, pendingY, pendingHorizontal);
+                replay.addWalls(tickCount, Math.round(pendingX / dimension),
+                        Math.round(pendingY / dimension), pendingHorizontal);
+            }
+            wallPending = false;
+        }
+
+        e.savePositions();
+
+        // if a ball hits a ball during this step, bounce. Only balls in neighbouring
+        // hash cells can meet, so those are the only pairs that need checked.
+        ballHash.rebuild(e.ballX, e.ballY, e.ballCount);
+        int pairCount = ballHash.findPairs(e.ballCount);
+        int[] pairs = ballHash.getPairs();
+        for (int i = 0; i < pairCount; i++) {
+            e.collideBalls(pairs[2 * i], pairs[2 * i + 1], dt);
+        }
+
+        for (int i = 0; i < e.ballCount; i++) {
+            // a ball hitting a wall that's still growing destroys it
+            for (int j = 0; j < e.wallCount; j++) {
+                if (e.wallMoving[j] && hitsWall(i, j, dt)) {
+                    lives--;
+                    wallHit = true;
+                    events.publish(EventQueue.LIFE_LOST, lives);
+                }
+            }
+
+            // walls that have stopped are baked into the grid, so bounce off of that
+            moveBall(i, dt);
+
+            // regions only need to hear about a ball when it changes square
+            int square = squareOf(e.ballX[i], e.ballY[i]);
+            if (square != e.ballSquare[i]) {
+                regions.moveBall(e.ballSquare[i], square);
+                e.ballSquare[i] = square;
+            }
+        }
+
+        /*
+         * If one wall was hit, remove it and it's pair if the pair is still moving.
+         * Walls that already stopped stay so their partition is checked.
+         */
+        if (wallHit) {
+            int removed = 0;
+            for (int j = e.wallCount - 1; j >= 0; j--) {
+                if (e.wallMoving[j]) {
+                    e.removeWall(j);
+                    removed++;
+                }
+            }
+            events.publish(EventQueue.WALL_DESTROYED, removed);
+        }
+
+        /*
+            Move walls, update them if they've stopped moving. Walls are tracked in
+            this convoluted way to make sure that:
+            1. New partitions are only created when all walls have stopped moving, ONCE
+            2. Walls are not added to grid more than once.
+         */
+        if (e.wallCount > 0) {
+            for (int j = 0; j < e.wallCount; j++) {
+                if (e.wallMoving[j]) {
+                    e.growWall(j, dt);
+                }
+            }
+
+            int notMoving = 0;
+            for (int j = 0; j < e.wallCount; j++) {
+                if (!e.wallMoving[j]) {
+                    notMoving++;
+                    // ensure walls are only drawn once
+                    if (!e.wallDrawn[j]) {
+                        e.wallDrawn[j] = true;
+                        addWallToGrid(e.getWalls().get(j));
+                    }
+                }
+            }
+            // only add partitions when all walls have stopped moving. Any region the
+            // walls split off or cut into might have been left without a ball.
+            if (notMoving == e.wallCount) {
+                int[] changed = regions.getChanged();
+                for (int j = 0; j < regions.getChangedCount(); j++) {
+                    if (regions.getArea(changed[j]) > 0 && isBallFree(changed[j])) {
+                        fillPartition(changed[j]);
+                    }
+                }
+                regions.clearChanged();
+                e.clearWalls();
+            }
+
+        }
+
+        if (lives <= 0 || isBeatLevel()) {
+            endGame();
+        }
+
+    }
+
+
+    /**
+     * Return true if this game is being played in chaos mode, with many balls per level
+     */
+    public boolean isChaosMode() {
+        return chaosMode;
+    }
+
+    /**
+     * Return the score, the number of squares walled off or revealed so far
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Return the score as a percentage of the winning score for displaying to user
+     */
+    public int getScoreAsPercentage() {
+        return (int) Math.floor((score / (double) winningScore) * 100);
+    }
+
+    /**
+     * Interpret touch events when GameState in GameManager is GAME_ACTIVE. Add a new
+     * set of walls to movingWalls if the gesture is valid (mostly horizontal or
+     * vertical line drawn, with length great enough the user made their intention
+     * clear). Only one set of walls can be "moving" at a given time. Looks at the
+     * engine's own board, so should only be called from the thread that ticks it.
+     */
+    public void interpretTouchEvent(Gesture gesture) {
+        // only one set of walls can moving at once, don't allow another to begin
+        // until the previous set is finished.
+        if (entities.wallCount > 0) {
+            return;
+        }
+        interpretTouchEvent(gesture, board, board.getVersion());
+    }
+
+    /**
+     * Same as interpretTouchEvent(Gesture), but looking at the given frame's copy of
+     * the board and walls, so it can be called from any thread that owns the frame.
+     * tick() checks again that the walls can still go there before placing them.
+     */
+    public void interpretTouchEvent(Gesture gesture, Frame frame) {
+        if (frame.getWallCount() > 0) {
+            return;
+        }
+        interpretTouchEvent(gesture, frame.getBoard(), frame.getBoardVersion());
+    }
+
+    private void interpretTouchEvent(Gesture gesture, Board board, int version) {
+        synchronized (gesture) {
+            // can't draw wall out of bounds
+            if (!previewWalls(gesture, board, version)) {
+                return;
+            }
+
+            queueWalls(gesture.getPreviewX(), gesture.getPreviewY(),
+                    gesture.getPreviewDirection() == Gesture.HORIZONTAL);
+        }
+    }
+
+    /**
+     * Work out where a pair of walls would go if the gesture ended right now, looking
+     * at the given frame's copy of the board, and keep it on the gesture. Return true
+     * if the gesture would place walls, in which case its preview says where. Used in
+     * the GameManager class to draw the helper line.
+     */
+    public boolean previewWalls(Gesture gesture, Frame frame) {
+        return previewWalls(gesture, frame.getBoard(), frame.getBoardVersion());
+    }
+
+    /*
+        A frame's copy of the board carries the version of the engine's board it was
+        made from, so a preview worked out for the helper line is reused here when the
+        walls are placed, and only raycast again once the gesture turns or the board
+        changes.
+     */
+    private boolean previewWalls(Gesture gesture, Board board, int version) {
+        synchronized (gesture) {
+            if (!gesture.isWall()) {
+                return false;
+            }
+            if (!gesture.hasPreview(version)) {
+                float x = gesture.getFirstX();
+                float y = gesture.getFirstY();
+                boolean open = isOpenSquare(board, x, y);
+                float from = 0;
+                float to = 0;
+                if (open && gesture.getDirection() == Gesture.HORIZONTAL) {
+                    from = findWallStop(board, x, y, Direction.Left);
+                    to = findWallStop(board, x, y, Direction.Right);
+                } else if (open) {
+                    from = findWallStop(board, x, y, Direction.Up);
+                    to = findWallStop(board, x, y, Direction.Down);
+                }
+                // convert touch into grid coordinates, walls cannot be drawn "between"
+                // grids
+                gesture.setPreview(version, open,
+                        (float) (Math.floor(x / dimension) * dimension),
+                        (float) (Math.floor(y / dimension) * dimension), from, to);
+            }
+            return gesture.isPreviewOpen();
+        }
+    }
+
+    /*
+        Place the pair of walls a Replay recorded at the given column and row, counted
+        in squares from the top left of the screen, the same way interpretTouchEvent
+        would have.
+     */
+    void replayWalls(int column, int row, boolean horizontal) {
+        queueWalls((float) (column * (double) dimension),
+                (float) (row * (double) dimension), horizontal);
+    }
+
+    /*
+        The game thread may be iterating the walls, so hand the new walls over for
+        tick() to add
+     */
+    private void queueWalls(float x, float y, boolean horizontal) {
+        synchronized (pendingLock) {
+            if (!wallPending) {
+                wallPending = true;
+                pendingX = x;
+                pendingY = y;
+                pendingHorizontal = horizontal;
+            }
+        }
+    }
+
+    /**
+     * Same as newGame(), but switches to or from chaos mode first. The mode only ever
+     * changes here, so a game is played in one mode from start to finish.
+     */
+    public void newGame(boolean chaosMode) {
+        if (chaosMode != this.chaosMode) {
+            switchChaosMode();
+        }
+        newGame();
+    }
+
+    /*
+        Turn chaos mode on if it's off and off if it's on, for the next game
+     */
+    void switchChaosMode() {
+        replay.addEvent(tickCount, Replay.SWITCH_MODE);
+        chaosMode = !chaosMode;
+    }
+
+    /**
+     * After a game over, reset starting values and initialize a new game state.
+     */
+    public void newGame() {
+        replay.addEvent(tickCount, Replay.NEW_GAME);
+        level = STARTING_LEVEL;
+        lives = STARTING_LIVES;
+        score = 0;
+        gameOver = false;
+        init();
+    }
+
+    /**
+     * Return the seed this engine draws its random numbers from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Copy everything needed to draw the game as it is now into the given Frame. Should
+     * be called from the thread that ticks the engine, after a tick.
+     */
+    public void writeFrame(Frame frame) {
+        frame.capture(entities, board, tickCount, getScoreAsPercentage(), lives, level);
+    }
+
+    /**
+     * Return the queue this engine publishes its events to. Whoever drains it should
+     * do so regularly, since events that don't fit are dropped.
+     */
+    public EventQueue getEvents() {
+        return events;
+    }
+
+    /**
+     * Return everything needed to play this engine's session so far over again. The
+     * Replay is a copy, so it won't change as the game goes on. Should be called from
+     * the thread that ticks the engine.
+     */
+    public Replay getReplay() {
+        Replay copy = replay.copy();
+        copy.setTicks(tickCount);
+        return copy;
+    }
+
+    /**
+     * Return how many bytes writeSnapshot() needs for the game as it is right now
+     */
+    public int getSnapshotSize() {
+        return SNAPSHOT_HEADER_BYTES + board.getSize() + entities.getSnapshotSize()
+                + replay.getSnapshotSize();
+    }
+
+    /**
+     * Write the whole game in progress to the buffer: the layout and mode it was
+     * created with, level, lives, the board, every ball and wall, and the seed and
+     * replay so far. The buffer needs getSnapshotSize() bytes left. Should be called
+     * from the thread that ticks the engine, or while nothing is ticking it.
+     */
+    public void writeSnapshot(ByteBuffer buffer) {
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+        buffer.putInt(layout.getWidth()).putInt(layout.getHeight());
+        buffer.putInt(layout.getTop()).putInt(layout.getPadding());
+        buffer.put((byte) (chaosMode ? 1 : 0));
+        buffer.putLong(seed).putInt(inits).putLong(tickCount);
+        buffer.putInt(level).putInt(lives);
+        buffer.put((byte) (gameOver ? 1 : 0));
+
+        board.write(buffer);
+        entities.write(buffer);
+        replay.write(buffer);
+    }
+
+    /**
+     * Same as readSnapshot(BoardLayout, boolean, ByteBuffer), but the game carries on
+     * in whichever mode it was saved in
+     */
+    public static GameEngine readSnapshot(BoardLayout layout, ByteBuffer buffer) {
+        if (buffer.remaining() <= SNAPSHOT_MODE_AT) {
+            return null; // the snapshot was cut short
+        }
+        boolean chaosMode = buffer.get(buffer.position() + SNAPSHOT_MODE_AT) != 0;
+        return readSnapshot(layout, chaosMode, buffer);
+    }
+
+    /**
+     * Rebuild the game saved by writeSnapshot() without starting a new one, so it
+     * carries on exactly where it left off. Returns null if the snapshot was taken with
+     * a different layout or mode, by a different version, or is cut short. The board
+     * is sized from the layout, so a snapshot with the same layout always fits.
+     */
+    public static GameEngine readSnapshot(BoardLayout layout, boolean chaosMode,
+                                          ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION
+                    || buffer.getInt() != layout.getWidth()
+                    || buffer.getInt() != layout.getHeight()
+                    || buffer.getInt() != layout.getTop()
+                    || buffer.getInt() != layout.getPadding()
+                    || (buffer.get() != 0) != chaosMode) {
+                return null;
+            }
+            GameEngine engine = new GameEngine(layout, chaosMode, buffer.getLong(), false);
+            engine.restore(buffer);
+            return engine;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null; // the snapshot was cut short
+        }
+    }
+
+    /*
+        Put this engine back to the state in a snapshot taken from an engine with the
+        same layout, mode and seed, such as one made by readSnapshot() from the same
+        snapshot. Reuses everything already allocated, so searching forward from one
+        position many times doesn't build a new engine for each try.
+     */
+    void reload(ByteBuffer buffer) {
+        buffer.position(buffer.position() + SNAPSHOT_SEED_END);
+        restore(buffer);
+    }
+
+    /*
+        Fill in everything after the seed from a snapshot. The regions are worked out
+        again from the board, and since any of them might have been cut off by walls
+        that are still growing, they're all checked for balls when those walls stop.
+     */
+    private void restore(ByteBuffer buffer) {
+        inits = buffer.getInt();
+        tickCount = buffer.getLong();
+        level = buffer.getInt();
+        lives = buffer.getInt();
+        gameOver = buffer.get() != 0;
+
+        synchronized (pendingLock) {
+            wallPending = false;
+        }
+
+        board.read(buffer);
+        regions.clearBalls();
+        regions.rebuild();
+        entities.read(buffer);
+        // the board's back, so the walls still growing can find their stops again
+        for (int i = 0; i < entities.wallCount; i++) {
+            entities.aimWall(i, board, dimension);
+        }
+        for (int i = 0; i < entities.ballCount; i++) {
+            int square = squareOf(entities.ballX[i], entities.ballY[i]);
+            entities.ballSquare[i] = square;
+            regions.addBall(square);
+        }
+        replay.read(buffer);
+        updateScore();
+    }
+
+    /**
+     * Return the current board state
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Return the layout of the screen this engine was set up for
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns the current actual dimension of each square on the board
+     */
+    public float getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Return true if the game is over, or if the current level has been completed
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Return true if the current level has been completed. The game needs to be paused
+     * regardless of GameState.GAME_OVER or GameState.LEVEL_WON, so we need a separate
+     * method to distinguish what to display.
+     */
+    public boolean isBeatLevel() {
+        return score >= winningScore;
+    }
+
+    /**
+     * Return the current level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Return the current ball radius
+     */
+    public int getBallRadius() {
+        return ballRadius;
+    }
+
+    /**
+     * Return the current number of lives
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * Return where a wall would stop if the player placed a pair at the given point
+     * right now, growing in the given Direction: an x coordinate for Left and Right, a
+     * y coordinate for Up and Down. The point snaps to the grid the same way it does
+     * in interpretTouchEvent. Used in previewWalls() to show where the walls
+     * will end up before they're placed.
+     */
+    public float findWallStop(float x, float y, Direction direction) {
+        return findWallStop(board, x, y, direction);
+    }
+
+    /**
+     * Same as findWallStop(float, float, Direction), but looking at the given board,
+     * like a Frame's copy, instead of the engine's own
+     */
+    public float findWallStop(Board board, float x, float y, Direction direction) {
+        int column = scaleToGridX((float) (Math.floor(x / dimension) * dimension));
+        int row = scaleToGridY((float) (Math.floor(y / dimension) * dimension));
+        // the second wall of a pair starts one square along, see placeWalls()
+        if (direction == Direction.Right) {
+            column++;
+        } else if (direction == Direction.Up) {
+            row--;
+        }
+        return entities.findStop(board, dimension, row, column, direction);
+    }
+
+    /**
+     * Performs the full conversion from float to grid coordinates and returns true if
+     * a wall could be started at that square: it's on the grid, not a wall and not
+     * already revealed. Used here when placing walls, and in the GameManager class to
+     * determine when to display the helper line.
+     */
+    public boolean isOpenSquare(float x, float y) {
+        return isOpenSquare(board, x, y);
+    }
+
+    /**
+     * Same as isOpenSquare(float, float), but looking at the given board, like a
+     * Frame's copy, instead of the engine's own
+     */
+    public boolean isOpenSquare(Board board, float x, float y) {
+        int column = scaleToGridX((float) (Math.floor(x / dimension) * dimension));
+        int row = scaleToGridY((float) (Math.floor(y / dimension) * dimension));
+
+        if (row < 0 || row >= wideSize || column < 0 || column >= NARROW_SIZE) {
+            return false;
+        }
+        return board.isOpen(row, column);
+    }
+
+    /*
+        Put ball i at the given center, moving at the given velocity, and keep track of
+        which square it's in. Lets tests set up exactly the collision they want.
+     */
+    void placeBall(int i, double x, double y, double dx, double dy) {
+        EntityStore e = entities;
+        e.ballX[i] = x;
+        e.ballY[i] = y;
+        e.ballPrevX[i] = x;
+        e.ballPrevY[i] = y;
+        e.ballDx[i] = dx;
+        e.ballDy[i] = dy;
+        int square = squareOf(x, y);
+        regions.moveBall(e.ballSquare[i], square);
+        e.ballSquare[i] = square;
+    }
+
+    /*
+        Wall off the given square straight away, as if a wall had stopped on it. Lets
+        benchmarks and tests carve up the board without having to play walls in.
+     */
+    void closeSquare(int row, int column) {
+        regions.close(row, column);
+        regions.clearChanged();
+        updateScore();
+    }
+
+    /*
+        Add the pair of walls that grows out from the given grid-aligned location in
+        opposite directions.
+     */
+    private void placeWalls(float x, float y, boolean horizontal) {
+        if (horizontal) {
+            addWall(x, y, Direction.Left, RED);
+            addWall(x + dimension, y, Direction.Right, BLUE);
+        } else {
+            addWall(x, y, Direction.Down, RED);
+            addWall(x, y - dimension, Direction.Up, BLUE);
+        }
+    }
+
+    /*
+        Add a single wall and work out where it's going to stop, so growing it is only
+        a comparison against that stop
+     */
+    private void addWall(float x, float y, Direction direction, int color) {
+        Wall wall = entities.addWall(x, y, dimension, direction, color);
+        entities.aimWall(wall.getIndex(), board, dimension);
+    }
+
+    /*
+        Return true if ball i touches wall j at any point in the next dt seconds,
+        either because it already overlaps it or because its path runs into it.
+     */
+    private boolean hitsWall(int i, int j, float dt) {
+        EntityStore e = entities;
+        double x = e.ballX[i];
+        double y = e.ballY[i];
+        int r = e.ballRadius[i];
+
+        // closest point on the wall to the ball's center
+        double nearX = Math.max(e.wallLeft[j], Math.min(x, e.wallRight[j]));
+        double nearY = Math.max(e.wallTop[j], Math.min(y, e.wallBottom[j]));
+        if ((x - nearX) * (x - nearX) + (y - nearY) * (y - nearY) < r * r) {
+            return true;
+        }
+        return sweepCircle(x, y, e.ballDx[i], e.ballDy[i], r, e.wallLeft[j],
+                e.wallTop[j], e.wallRight[j], e.wallBottom[j], dt) >= 0;
+    }
+
+    /*
+        Move ball i for dt seconds, bouncing off the screen edges and any wall or
+        revealed squares in the grid along the way. Each leg of the move sweeps the
+        ball up to the first thing it would hit, reflects its velocity about the
+        surface there, then carries on with whatever time is left.
+     */
+    private void moveBall(int i, float dt) {
+        EntityStore e = entities;
+        int r = e.ballRadius[i];
+        double minX = r;
+        double maxX = width - r;
+        double minY = boardTop + padding + r;
+        double maxY = height - 2 * padding - r;
+        double remaining = dt;
+
+        for (int impacts = 0; impacts < MAX_IMPACTS && remaining > 0; impacts++) {
+            double x = e.ballX[i];
+            double y = e.ballY[i];
+            double dx = e.ballDx[i];
+            double dy = e.ballDy[i];
+            double first = remaining;
+            double normalX = 0;
+            double normalY = 0;
+
+            // screen edges
+            if (dx < 0 && (minX - x) / dx < first) {
+                first = Math.max(0, (minX - x) / dx);
+                normalX = 1;
+                normalY = 0;
+            } else if (dx > 0 && (maxX - x) / dx < first) {
+                first = Math.max(0, (maxX - x) / dx);
+                normalX = -1;
+                normalY = 0;
+            }
+            if (dy < 0 && (minY - y) / dy < first) {
+                first = Math.max(0, (minY - y) / dy);
+                normalX = 0;
+                normalY = 1;
+            } else if (dy > 0 && (maxY - y) / dy < first) {
+                first = Math.max(0, (maxY - y) / dy);
+                normalX = 0;
+                normalY = -1;
+            }
+
+            // only squares the ball could reach by the end of the step can be hit
+            int firstColumn = Math.max(0,
+                    scaleToGridX((float) (Math.min(x, x + dx * remaining) - r)));
+            int lastColumn = Math.min(NARROW_SIZE - 1,
+                    scaleToGridX((float) (Math.max(x, x + dx * remaining) + r)));
+            int firstRow = Math.max(0,
+                    scaleToGridY((float) (Math.min(y, y + dy * remaining) - r)));
+            int lastRow = Math.min(wideSize - 1,
+                    scaleToGridY((float) (Math.max(y, y + dy * remaining) + r)));
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    if (board.isOpen(row, column)) {
+                        continue;
+                    }
+                    double left = column * dimension;
+                    double top = row * dimension + boardTop;
+                    double time = sweepCircle(x, y, dx, dy, r, left, top,
+                            left + dimension, top + dimension, first);
+                    if (time >= 0 && (time < first || normalX == 0 && normalY == 0)) {
+                        first = time;
+                        normalX = hitNormalX;
+                        normalY = hitNormalY;
+                    }
+                }
+            }
+
+            e.advanceBall(i, first);
+            remaining -= first;
+            if (normalX == 0 && normalY == 0) {
+                break; // made it to the end of the step without hitting anything
+            }
+
+            // reflect the velocity about the surface that was hit
+            double along = dx * normalX + dy * normalY;
+            e.ballDx[i] = dx - 2 * along * normalX;
+            e.ballDy[i] = dy - 2 * along * normalY;
+        }
+
+        e.spinBall(i, dt);
+    }
+
+    /*
+        Sweep a circle of radius r from (x, y) along (dx, dy) per second against the
+        box (left, top, right, bottom) and return the time it first touches within
+        maxTime seconds, or -1 if it doesn't. On a hit, hitNormalX and hitNormalY
+        hold the unit normal of the box surface at the point of contact.
+
+        That's the same as casting a ray from the center against the box grown by r on
+        every side with its corners rounded off: the flat sides are found with the
+        usual slab test, and if the ray would land in a corner it's tested against a
+        circle of radius r around that corner instead. A circle already touching the
+        box only counts if it's moving further in, so a ball that just bounced off
+        isn't caught again.
+     */
+    private double sweepCircle(double x, double y, double dx, double dy, double r,
+                               double left, double top, double right, double bottom,
+                               double maxTime) {
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        boolean enteredX = false;
+
+        if (dx == 0) {
+            if (x <= left - r || x >= right + r) {
+                return -1;
+            }
+        } else {
+            double near = ((dx > 0 ? left - r : right + r) - x) / dx;
+            double far = ((dx > 0 ? right + r : left - r) - x) / dx;
+            enter = near;
+            exit = far;
+            enteredX = true;
+        }
+        if (dy == 0) {
+            if (y <= top - r || y >= bottom + r) {
+                return -1;
+            }
+        } else {
+            double near = ((dy > 0 ? top - r : bottom + r) - y) / dy;
+            double far = ((dy > 0 ? bottom + r : top - r) - y) / dy;
+            if (near > enter) {
+                enter = near;
+                enteredX = false;
+            }
+            exit = Math.min(exit, far);
+        }
+
+        if (enter > exit || exit <= 0 || enter > maxTime) {
+            return -1;
+        }
+
+        // where the center crosses into the grown box
+        double time = Math.max(enter, 0);
+        double hitX = x + dx * time;
+        double hitY = y + dy * time;
+
+        if (enteredX ? hitY >= top && hitY <= bottom : hitX >= left && hitX <= right) {
+            // landed on a flat side
+            if (enter < -CONTACT_SLOP) {
+                return -1; // already inside, let it work its way out
+            }
+            hitNormalX = enteredX ? -Math.signum(dx) : 0;
+            hitNormalY = enteredX ? 0 : -Math.signum(dy);
+            return time;
+        }
+
+        // landed in a corner, so test against the rounded corner instead
+        double cornerX = hitX < left ? left : right;
+        double cornerY = hitY < top ? top : bottom;
+        double offsetX = x - cornerX;
+        double offsetY = y - cornerY;
+        double closing = offsetX * dx + offsetY * dy;
+        double gap = offsetX * offsetX + offsetY * offsetY - r * r;
+        if (closing >= 0 || gap < -CONTACT_SLOP * r) {
+            return -1; // moving away from the corner, or already well inside it
+        }
+
+        double speedSquared = dx * dx + dy * dy;
+        double discriminant = closing * closing - speedSquared * gap;
+        if (discriminant < 0) {
+            return -1; // slips past the corner
+        }
+        time = Math.max(0, (-closing - Math.sqrt(discriminant)) / speedSquared);
+        if (time > maxTime) {
+            return -1;
+        }
+
+        hitNormalX = (offsetX + dx * time) / r;
+        hitNormalY = (offsetY + dy * time) / r;
+        return time;
+    }
+
+    /*
+        If a partition has no balls in it, the fill the partition with 0's so the 
+        GameManager can render it as "unlocked".
+        Add points for every grid unlocked, known from the region's area.
+        Check to see if the level is complete.
+     */
+    private void fillPartition(int section) {
+        events.publish(EventQueue.REGION_REVEALED, regions.getArea(section));
+        regions.reveal(section);
+        updateScore();
+
+        if (isBeatLevel()) {
+            endGame();
+        }
+    }
+
+    /*
+        Stop the game, either because the level's been won or the lives have run out,
+        and say which. Only the first call after a level starts does anything.
+     */
+    private void endGame() {
+        if (gameOver) {
+            return;
+        }
+        gameOver = true;
+        events.publish(isBeatLevel() ? EventQueue.LEVEL_WON
+                : EventQueue.GAME_OVER, level);
+    }
+
+    /*
+        Return true if a given partition has no balls inside it
+     */
+    private boolean isBallFree(int partitionFill) {
+        return regions.getBallCount(partitionFill) == 0;
+    }
+
+    /*
+        Now that the wall has stopped moving, add to the grid and update 
+        the game score.
+     */
+    private void addWallToGrid(Wall wall) {
+        Bounds rectF = wall.getRect();
+        int top = scaleToGridY(rectF.top);
+        int bottom = scaleToGridY(rectF.bottom);
+        int left = scaleToGridX(rectF.left);
+        int right = scaleToGridX(rectF.right);
+
+        for (int i = top; i < bottom; i++) {
+            for (int j = left; j < right; j++) {
+                regions.close(i, j);
+            }
+        }
+        updateScore();
+    }
+
+    /*
+        The score is every square that's been walled off or revealed. RegionMap already
+        knows how many squares are still open, so there's nothing to count.
+     */
+    private void updateScore() {
+        score = wideSize * NARROW_SIZE - regions.getOpenSquares();
+    }
+
+    /*
+     * Return the grid square holding the given point, packed as
+     * row * NARROW_SIZE + column. Points off the grid are counted in the nearest edge
+     * square, since a ball's center can sit in the strip below the last row.
+     */
+    private int squareOf(double x, double y) {
+        int row = Math.max(0, Math.min(wideSize - 1, scaleToGridY((float) y)));
+        int column = Math.max(0, Math.min(NARROW_SIZE - 1, scaleToGridX((float) x)));
+        return board.indexOf(row, column);
+    }
+
+    /*
+     * Helper method to turn a float into grid coordinates
+     */
+    private int scaleToGridX(float x) {
+        return (int) Math.floor(x / dimension);
+    }
+
+    /*
+     * Helper method to turn a float into grid coordinates
+     */
+    private int scaleToGridY(float y) {
+        return (int) Math.floor((y - boardTop) / dimension);
+    }
+}
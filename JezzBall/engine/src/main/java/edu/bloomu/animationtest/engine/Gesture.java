@@ -0,0 +1,213 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * One touch on the screen, from the finger going down to it lifting, recognized as it
+ * streams in. Every sample only moves the last point and updates which way the
+ * gesture is heading, so a long drag takes no more memory than a tap, and the
+ * direction never needs any trig to work out.
+ * <p>
+ * The gesture also caches where a pair of walls would go if it ended now. The engine
+ * fills the preview in with previewWalls() and only works it out again when the
+ * gesture turns or the board changes, so the guide line and the walls actually placed
+ * come from the same raycast.
+ * <p>
+ * Samples arrive on the UI thread while the guide line is drawn on another, so every
+ * method locks the gesture.
+ */
+
+public final class Gesture {
+
+    public static final int NONE = 0;
+    public static final int HORIZONTAL = 1;
+    public static final int VERTICAL = 2;
+
+    // the gesture is horizontal if it's within 25 degrees of flat, and vertical if
+    // it's within 25 degrees of upright. Anything in between isn't clear enough.
+    private static final double FLAT = Math.tan(Math.toRadians(25));
+    private static final double UPRIGHT = Math.tan(Math.toRadians(65));
+
+    private int count; // touch events delivered, which is what isWall() goes by
+    private boolean started;
+    private float firstX;
+    private float firstY;
+    private float lastX;
+    private float lastY;
+    private int direction = NONE;
+    // bumped by reset(), so a preview is never mistaken for the next gesture's
+    private int generation;
+
+    private int previewGeneration = -1;
+    private int previewDirection;
+    private int previewVersion;
+    private boolean previewOpen;
+    private float previewX;
+    private float previewY;
+    private float previewFrom;
+    private float previewTo;
+
+    /**
+     * Add the next sample of the touch, as delivered in a touch event
+     */
+    public synchronized void add(float x, float y) {
+        addSample(x, y);
+        count++;
+    }
+
+    /**
+     * Add a sample batched up in a touch event's history, from between two delivered
+     * events. It moves the gesture on like any other, but doesn't count towards
+     * getCount(), so how long a wall takes to draw doesn't depend on how often the
+     * screen samples.
+     */
+    public synchronized void addHistorical(float x, float y) {
+        addSample(x, y);
+    }
+
+    private void addSample(float x, float y) {
+        if (!started) {
+            firstX = x;
+            firstY = y;
+            started = true;
+        }
+        lastX = x;
+        lastY = y;
+
+        float dx = Math.abs(x - firstX);
+        float dy = Math.abs(y - firstY);
+        if (dy <= dx * FLAT) {
+            direction = HORIZONTAL;
+        } else if (dy >= dx * UPRIGHT) {
+            direction = VERTICAL;
+        } else {
+            direction = NONE;
+        }
+    }
+
+    /**
+     * Forget the touch so the gesture can be used for the next one
+     */
+    public synchronized void reset() {
+        count = 0;
+        started = false;
+        direction = NONE;
+        generation++;
+    }
+
+    /**
+     * Return the number of touch events added since the last reset, not counting the
+     * historical samples between them
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized float getFirstX() {
+        return firstX;
+    }
+
+    public synchronized float getFirstY() {
+        return firstY;
+    }
+
+    public synchronized float getLastX() {
+        return lastX;
+    }
+
+    public synchronized float getLastY() {
+        return lastY;
+    }
+
+    /**
+     * Return HORIZONTAL or VERTICAL if the line from the first sample to the last is
+     * clearly one or the other, otherwise NONE
+     */
+    public synchronized int getDirection() {
+        return direction;
+    }
+
+    /**
+     * Return true if the gesture is long enough and straight enough that the player
+     * clearly meant to draw a wall
+     */
+    public synchronized boolean isWall() {
+        return count >= GameEngine.WALL_TOUCH_INTENTION && direction != NONE;
+    }
+
+    /**
+     * Return true if both the first and last samples are inside the given rectangle
+     */
+    public synchronized boolean isWithin(float left, float top, float right,
+                                         float bottom) {
+        return count > 0
+                && firstX > left && firstX < right && firstY < bottom && firstY > top
+                && lastX > left && lastX < right && lastY < bottom && lastY > top;
+    }
+
+    /*
+     * Return true if the preview is still good for a board at the given version
+     */
+    boolean hasPreview(int version) {
+        return previewGeneration == generation && previewDirection == direction
+                && previewVersion == version;
+    }
+
+    /*
+     * Cache the walls this gesture would place, as worked out by the engine: whether
+     * the starting square is open, its grid-aligned corner and how far the walls
+     * would grow either way
+     */
+    void setPreview(int version, boolean open, float x, float y, float from, float to) {
+        previewGeneration = generation;
+        previewDirection = direction;
+        previewVersion = version;
+        previewOpen = open;
+        previewX = x;
+        previewY = y;
+        previewFrom = from;
+        previewTo = to;
+    }
+
+    /**
+     * Return the x coordinate of the top left corner of the square the previewed walls
+     * start from
+     */
+    public synchronized float getPreviewX() {
+        return previewX;
+    }
+
+    /**
+     * Return the y coordinate of the top left corner of the square the previewed walls
+     * start from
+     */
+    public synchronized float getPreviewY() {
+        return previewY;
+    }
+
+    /**
+     * Return where the previewed Left or Up wall would stop
+     */
+    public synchronized float getPreviewFrom() {
+        return previewFrom;
+    }
+
+    /**
+     * Return where the previewed Right or Down wall would stop
+     */
+    public synchronized float getPreviewTo() {
+        return previewTo;
+    }
+
+    /*
+     * Return true if the previewed walls start from an open square
+     */
+    boolean isPreviewOpen() {
+        return previewOpen;
+    }
+
+    /**
+     * Return the direction the preview was worked out for, HORIZONTAL or VERTICAL
+     */
+    public synchronized int getPreviewDirection() {
+        return previewDirection;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * A suggested pair of walls from the HintSolver: where to start them, which way they
+ * grow, and how the solver expects them to go.
+ */
+
+public final class Hint {
+
+    private final float x;
+    private final float y;
+    private final boolean horizontal;
+    private final double survival;
+    private final double area;
+    private final int tried;
+
+    Hint(float x, float y, boolean horizontal, double survival, double area, int tried) {
+        this.x = x;
+        this.y = y;
+        this.horizontal = horizontal;
+        this.survival = survival;
+        this.area = area;
+        this.tried = tried;
+    }
+
+    /**
+     * Return the x coordinate of the center of the square the walls start from
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * Return the y coordinate of the center of the square the walls start from
+     */
+    public float getY() {
+        return y;
+    }
+
+    /**
+     * Return true if the walls should be drawn left and right, false for up and down
+     */
+    public boolean isHorizontal() {
+        return horizontal;
+    }
+
+    /**
+     * Return the share of the solver's tries in which neither wall was hit, from 0 to 1
+     */
+    public double getSurvival() {
+        return survival;
+    }
+
+    /**
+     * Return the average number of squares walled off or revealed over those tries
+     */
+    public double getArea() {
+        return area;
+    }
+
+    /**
+     * Return how many placements the solver got through before its time ran out
+     */
+    public int getTried() {
+        return tried;
+    }
+}
@@ -0,0 +1,250 @@
+package edu.bloomu.animationtest.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds a good place for the player's next pair of walls. Every square a wall could be
+ * started from, as interpretTouchEvent would accept it, is tried both horizontally and
+ * vertically on a copy of the game made from a snapshot, and played forward until the
+ * walls either stop or get hit.
+ * <p>
+ * Each placement is played a few times, starting the walls a little later each time
+ * to allow for the player's reaction time. A placement scores the squares it gained
+ * on average, weighted by how often the walls survived, less the cost of a life for
+ * how often they didn't.
+ * <p>
+ * The placements are spread over a fork/join pool using every core. There are usually
+ * too many to play them all within the time budget, so they're tried in a random
+ * order, and whatever has been tried when time runs out is what the answer is chosen
+ * from.
+ * <p>
+ * solve() blocks until it has an answer, so it should be called from a thread that
+ * can wait, never the one ticking the game.
+ */
+
+public class HintSolver {
+
+    // how many ticks after now each try starts the walls
+    private static final int[] DELAYS = {0, 6, 12};
+    // give up on a try that hasn't finished after this many ticks
+    private static final int MAX_TICKS = 60 * 10;
+    // placements each task plays before it stops splitting
+    private static final int LEAF_SIZE = 8;
+    // a lost life costs this share of the board, in squares
+    private static final double LIFE_COST = .1;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a solver with a pool that uses every core
+     */
+    public HintSolver() {
+        this(new ForkJoinPool());
+    }
+
+    /**
+     * Create a solver that plays its tries on the given pool
+     */
+    public HintSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Return the best pair of walls to place next in the game saved in the snapshot,
+     * taking no more than about budgetNanos to decide. Returns null if no walls can be
+     * placed right now, because a pair is already growing or the game is over.
+     */
+    public Hint solve(ByteBuffer snapshot, BoardLayout layout, boolean chaosMode,
+                      long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        GameEngine engine = GameEngine.readSnapshot(layout, chaosMode,
+                snapshot.duplicate());
+        if (engine == null || engine.isGameOver() || !engine.getWalls().isEmpty()) {
+            return null;
+        }
+
+        Search search = new Search(snapshot, layout, chaosMode, engine, deadline);
+        if (search.count == 0) {
+            return null;
+        }
+        pool.invoke(search.new Task(0, search.count));
+        return search.best();
+    }
+
+    /*
+     * Everything one call to solve() shares between its tasks. Each placement has its
+     * own slot in the result arrays, so the tasks never write to the same place.
+     */
+    private static class Search {
+        private final ByteBuffer snapshot;
+        private final BoardLayout layout;
+        private final boolean chaosMode;
+        private final long deadline;
+        private final float dimension;
+        private final double lifeCost;
+
+        private final int[] columns;
+        private final int[] rows; // in squares from the top of the screen
+        private final boolean[] horizontal;
+        private final int count;
+
+        private final boolean[] tried;
+        private final double[] survival;
+        private final double[] area;
+
+        Search(ByteBuffer snapshot, BoardLayout layout, boolean chaosMode,
+               GameEngine engine, long deadline) {
+            this.snapshot = snapshot;
+            this.layout = layout;
+            this.chaosMode = chaosMode;
+            this.deadline = deadline;
+            dimension = engine.getDimension();
+            lifeCost = engine.getBoard().getSize() * LIFE_COST;
+
+            // walls snap to squares counted from the top left of the screen, not from
+            // the top of the board, so that's the grid the candidates are on
+            int firstRow = (int) Math.floor(layout.getTop() / dimension);
+            int lastRow = (int) Math.floor(layout.getHeight() / dimension);
+            int lastColumn = (int) Math.floor(layout.getWidth() / dimension);
+            int most = 2 * (lastRow - firstRow + 1) * (lastColumn + 1);
+            columns = new int[most];
+            rows = new int[most];
+            horizontal = new boolean[most];
+
+            int found = 0;
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = 0; column <= lastColumn; column++) {
+                    if (engine.isOpenSquare((column + .5f) * dimension,
+                            (row + .5f) * dimension)) {
+                        for (int k = 0; k < 2; k++) {
+                            columns[found] = column;
+                            rows[found] = row;
+                            horizontal[found] = k == 0;
+                            found++;
+                        }
+                    }
+                }
+            }
+            count = found;
+            shuffle(new Random(engine.getSeed()));
+
+            tried = new boolean[count];
+            survival = new double[count];
+            area = new double[count];
+        }
+
+        /*
+         * Put the candidates in a random order, so running out of time part way through
+         * still leaves a fair sample of the board
+         */
+        private void shuffle(Random random) {
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int column = columns[i];
+                int row = rows[i];
+                boolean isHorizontal = horizontal[i];
+                columns[i] = columns[j];
+                rows[i] = rows[j];
+                horizontal[i] = horizontal[j];
+                columns[j] = column;
+                rows[j] = row;
+                horizontal[j] = isHorizontal;
+            }
+        }
+
+        /*
+         * Play candidate i once for each delay on the given engine and record how it
+         * went
+         */
+        private void evaluate(GameEngine engine, int i) {
+            int survived = 0;
+            int gained = 0;
+            for (int delay : DELAYS) {
+                engine.reload(snapshot.duplicate());
+                int lives = engine.getLives();
+                int score = engine.getScore();
+
+                for (int tick = 0; tick < delay; tick++) {
+                    engine.tick();
+                }
+                engine.replayWalls(columns[i], rows[i], horizontal[i]);
+                engine.tick(); // picks the walls up
+                for (int tick = 0; tick < MAX_TICKS && !engine.getWalls().isEmpty()
+                        && !engine.isGameOver(); tick++) {
+                    engine.tick();
+                }
+
+                if (engine.getLives() == lives) {
+                    survived++;
+                }
+                gained += engine.getScore() - score;
+            }
+            survival[i] = survived / (double) DELAYS.length;
+            area[i] = gained / (double) DELAYS.length;
+            tried[i] = true;
+        }
+
+        /*
+         * Return the best candidate tried, or null if time ran out before any were
+         */
+        private Hint best() {
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            int triedCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (tried[i]) {
+                    triedCount++;
+                    double value = survival[i] * area[i] - (1 - survival[i]) * lifeCost;
+                    if (value > bestValue) {
+                        bestValue = value;
+                        best = i;
+                    }
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            return new Hint((columns[best] + .5f) * dimension,
+                    (rows[best] + .5f) * dimension, horizontal[best], survival[best],
+                    area[best], triedCount);
+        }
+
+        /*
+         * Plays the candidates from index from up to to, splitting in half until the
+         * range is small enough to play on one thread
+         */
+        private class Task extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+
+            Task(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > LEAF_SIZE) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Task(from, middle), new Task(middle, to));
+                    return;
+                }
+
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+                // one engine for the whole range, reloaded before every try
+                GameEngine engine = GameEngine.readSnapshot(layout, chaosMode,
+                        snapshot.duplicate());
+                for (int i = from; i < to && System.nanoTime() < deadline; i++) {
+                    evaluate(engine, i);
+                }
+            }
+        }
+    }
+}
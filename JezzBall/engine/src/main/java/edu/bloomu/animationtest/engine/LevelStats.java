@@ -0,0 +1,84 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * How a batch of games played by a SimulationFarm went on one level. A game counts as
+ * won if the level was cleared before the lives ran out or the farm gave up on it.
+ */
+
+public final class LevelStats {
+
+    private final int level;
+    private int games;
+    private int wins;
+    private long ticksToClear; // summed over the games won
+    private long livesLost; // summed over every game
+
+    LevelStats(int level) {
+        this.level = level;
+    }
+
+    /*
+     * Count one more game, which ended after the given number of ticks
+     */
+    void add(boolean won, long ticks, int lost) {
+        games++;
+        if (won) {
+            wins++;
+            ticksToClear += ticks;
+        }
+        livesLost += lost;
+    }
+
+    /*
+     * Fold in the games from another batch on the same level
+     */
+    void add(LevelStats other) {
+        games += other.games;
+        wins += other.wins;
+        ticksToClear += other.ticksToClear;
+        livesLost += other.livesLost;
+    }
+
+    /**
+     * Return the level these games were played on
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Return how many games were played
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Return how many games cleared the level
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * Return the share of games that cleared the level, from 0 to 1
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : wins / (double) games;
+    }
+
+    /**
+     * Return the average number of ticks the games that cleared the level took, or 0
+     * if none did
+     */
+    public double getAverageTicksToClear() {
+        return wins == 0 ? 0 : ticksToClear / (double) wins;
+    }
+
+    /**
+     * Return the average number of lives lost per game, won or not
+     */
+    public double getAverageLivesLost() {
+        return games == 0 ? 0 : livesLost / (double) games;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * The next level of a game, set up ahead of time so moving on to it doesn't have to
+ * wait on placing its balls. Planned by GameEngine.planNextLevel(), which only takes
+ * note of where the game is, then set up by prepare() on whatever thread can spare
+ * the time, and handed back to GameEngine.nextLevel(PreparedLevel).
+ * <p>
+ * Every level's balls are drawn from the engine's seed and the number of games it
+ * has started, on an empty board, so a scratch engine with the same seed places them
+ * exactly where the real one would. If the game has moved on since the plan was made,
+ * nextLevel() just sets the level up itself.
+ */
+
+public final class PreparedLevel {
+
+    final BoardLayout layout;
+    final boolean chaosMode;
+    final long seed;
+    final int level;
+    final int inits;
+    // the scratch engine the balls were placed in, once prepare() has run
+    private GameEngine prepared;
+
+    PreparedLevel(BoardLayout layout, boolean chaosMode, long seed, int level,
+                  int inits) {
+        this.layout = layout;
+        this.chaosMode = chaosMode;
+        this.seed = seed;
+        this.level = level;
+        this.inits = inits;
+    }
+
+    /**
+     * Set the level up. Doesn't touch the engine that planned it, so it can run on
+     * any thread, as long as whoever hands it back to nextLevel() has seen it finish.
+     */
+    public void prepare() {
+        GameEngine engine = new GameEngine(layout, chaosMode, seed);
+        engine.setUpLevel(level, inits);
+        prepared = engine;
+    }
+
+    /**
+     * Return the level this is
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /*
+     * Return the scratch engine the level was set up in, or null if prepare() hasn't
+     * run
+     */
+    GameEngine getPrepared() {
+        return prepared;
+    }
+}
@@ -0,0 +1,648 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * Keeps track of the connected regions of open squares on the GameEngine's Board as
+ * walls close squares off. Every open square is labelled with the id of the region it
+ * belongs to, and the area of each region is known without counting it.
+ * <p>
+ * Closing a square can only ever split a region, never join two, so rather than
+ * tracking the open squares directly a union-find is kept over the closed ones (walls,
+ * revealed squares and the edge of the board). A closed square can only cut a region
+ * in two if it joins up two pieces of the same closed component, making a loop, and
+ * that can be spotted from the 8 squares around it in constant time. Most squares a
+ * wall closes don't, so placing a wall usually costs about its length. When a loop is
+ * made, the pieces either side are searched at the same time and the search stops as
+ * soon as either one runs out, so only the smaller piece is ever walked and relabelled.
+ * <p>
+ * Each region also remembers one of its squares, so revealing it only walks the
+ * region itself rather than searching the whole board for its label.
+ * <p>
+ * Region ids are handed back when a region is revealed and reused, so they never grow
+ * past the number of squares on the board. All storage is allocated up front.
+ * <p>
+ * The number of balls in each region is kept too, so asking whether a region is empty
+ * is a lookup. The GameEngine only reports a ball when its center moves into another
+ * square, and when a region is split the balls in the piece that moved are counted
+ * from the squares as it's relabelled.
+ */
+
+public class RegionMap {
+
+    // marks open squares that haven't been given a region yet while rebuilding
+    private static final int UNLABELLED = Integer.MAX_VALUE;
+    private static final int OPEN = -1; // parent of a square that isn't closed
+
+    // neighbours of a square in clockwise order starting from the one above it. The
+    // even entries share a side with the square, the odd entries are corners.
+    private static final int[] RING_ROW = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final int[] RING_COLUMN = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final Board board;
+    private final int[] label; // region id of each open square, meaningless otherwise
+    private final int rows;
+    private final int columns;
+    private final int border; // union-find node standing in for everything off the board
+
+    private final int[] parent; // union-find over closed squares, indexed by square
+    private final int[] area; // indexed by region id
+    private final int[] anchor; // a square in each region, indexed by region id
+    private int openSquares; // total area of every region
+    private final int[] balls; // indexed by region id
+    private final int[] squareBalls; // number of ball centers in each square
+    private final int[] freeIds;
+    private int freeCount;
+
+    // regions created or cut down since clearChanged() was last called
+    private final int[] changed;
+    private int changedCount;
+
+    private final int[] floodStack;
+    private final int[] queueA;
+    private final int[] queueB;
+    private final int[] seen; // which search last visited each square
+    private int searchMark;
+
+    private final int[] ringRoot = new int[8];
+    private final int[] ringArc = new int[8];
+    private final int[] seeds = new int[4];
+
+    public RegionMap(Board board) {
+        this.board = board;
+        rows = board.getRows();
+        columns = board.getColumns();
+        int cells = board.getSize();
+        border = cells;
+
+        label = new int[cells];
+        parent = new int[cells + 1];
+        area = new int[cells + 1];
+        anchor = new int[cells + 1];
+        balls = new int[cells + 1];
+        squareBalls = new int[cells];
+        freeIds = new int[cells];
+        changed = new int[cells + 1];
+        // every square is pushed at most once from the row above and once from the row
+        // below, so twice the board size can never overflow
+        floodStack = new int[2 * cells + 1];
+        queueA = new int[cells];
+        queueB = new int[cells];
+        seen = new int[cells];
+
+        rebuild();
+    }
+
+    /**
+     * Work everything out from scratch from the current contents of the board. Every
+     * connected group of open squares is given a new region id, whatever it was
+     * labelled before. Used whenever the board has been changed wholesale, like at the
+     * start of a level. Every region counts as changed, since there's no telling which
+     * of them are new.
+     */
+    public void rebuild() {
+        freeCount = 0;
+        for (int id = freeIds.length; id >= 1; id--) {
+            freeIds[freeCount++] = id;
+        }
+        changedCount = 0;
+        openSquares = 0;
+
+        parent[border] = border;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (isOpen(i, j)) {
+                    label[i * columns + j] = UNLABELLED;
+                    parent[i * columns + j] = OPEN;
+                } else {
+                    parent[i * columns + j] = i * columns + j;
+                }
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (isOpen(i, j) && label[i * columns + j] == UNLABELLED) {
+                    int id = freeIds[--freeCount];
+                    area[id] = flood(i, j, id);
+                    anchor[id] = i * columns + j;
+                    balls[id] = 0;
+                    openSquares += area[id];
+                    changed[changedCount++] = id; // every id is new, no duplicates
+                } else if (!isOpen(i, j)) {
+                    joinNeighbours(i, j);
+                }
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (isOpen(i, j)) {
+                    balls[label[i * columns + j]] += squareBalls[i * columns + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Turn the open square at the given row and column into a wall, splitting its
+     * region if that cuts it in two. The region and any new ones split off from it are
+     * recorded in the changed list. Returns false if the square was already closed.
+     */
+    public boolean close(int row, int column) {
+        if (!isOpen(row, column)) {
+            return false; // already closed
+        }
+
+        int region = label[row * columns + column];
+        board.set(row, column, Board.WALL);
+        area[region]--;
+        openSquares--;
+        // any ball still centered here no longer counts towards the region
+        balls[region] -= squareBalls[row * columns + column];
+        addChanged(region);
+
+        boolean loop = makesLoop(row, column);
+        parent[row * columns + column] = row * columns + column;
+        joinNeighbours(row, column);
+
+        if (area[region] == 0) {
+            // closed the last square, the region is gone
+            freeIds[freeCount++] = region;
+            balls[region] = 0;
+            return true;
+        }
+
+        // the open squares beside this one might now be in different pieces
+        int seedCount = 0;
+        for (int k = 0; k < 8; k += 2) {
+            int i = row + RING_ROW[k];
+            int j = column + RING_COLUMN[k];
+            if (isInRegion(i, j, region)) {
+                seeds[seedCount++] = i * columns + j;
+            }
+        }
+
+        for (int k = 1; loop && k < seedCount; k++) {
+            if (labelOf(seeds[k]) != region) {
+                continue; // already split off along with an earlier seed
+            }
+            for (int h = 0; h < k; h++) {
+                if (labelOf(seeds[h]) == region) {
+                    separate(seeds[h], seeds[k], region);
+                    break;
+                }
+            }
+        }
+
+        // the square remembered for the region may have just been closed or split off.
+        // Whatever's left of the region is next to this square.
+        if (labelOf(anchor[region]) != region) {
+            for (int k = 0; k < seedCount; k++) {
+                if (labelOf(seeds[k]) == region) {
+                    anchor[region] = seeds[k];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reveal every square in the given region, making it part of the closed board,
+     * and free its id to be used again. Returns the number of squares revealed.
+     */
+    public int reveal(int region) {
+        if (area[region] == 0) {
+            return 0; // walled in completely, already gone
+        }
+
+        // walk the region from its remembered square. queueA doubles as the list of
+        // squares revealed so far.
+        int start = anchor[region];
+        board.set(start, Board.REVEALED);
+        queueA[0] = start;
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            int square = queueA[head++];
+            int row = square / columns;
+            int column = square % columns;
+
+            for (int k = 0; k < 8; k += 2) {
+                int i = row + RING_ROW[k];
+                int j = column + RING_COLUMN[k];
+                if (isInRegion(i, j, region)) {
+                    board.set(i, j, Board.REVEALED);
+                    queueA[tail++] = i * columns + j;
+                }
+            }
+        }
+
+        // joined up after, since the whole region goes at once there's nothing to split
+        for (int k = 0; k < tail; k++) {
+            parent[queueA[k]] = queueA[k];
+        }
+        for (int k = 0; k < tail; k++) {
+            joinNeighbours(queueA[k] / columns, queueA[k] % columns);
+        }
+
+        openSquares -= tail;
+        area[region] = 0;
+        balls[region] = 0;
+        freeIds[freeCount++] = region;
+        return tail;
+    }
+
+    /**
+     * Return the number of open squares left on the board, across every region
+     */
+    public int getOpenSquares() {
+        return openSquares;
+    }
+
+    /**
+     * Return the id of the region the square at the given index belongs to, or 0 if
+     * it's a wall or revealed
+     */
+    public int getRegion(int square) {
+        return labelOf(square);
+    }
+
+    /**
+     * Return the number of open squares in the given region
+     */
+    public int getArea(int region) {
+        return area[region];
+    }
+
+    /**
+     * Return the number of balls centered in the given region
+     */
+    public int getBallCount(int region) {
+        return balls[region];
+    }
+
+    /**
+     * Record a ball whose center is in the given square, packed as
+     * row * columns + column.
+     */
+    public void addBall(int square) {
+        squareBalls[square]++;
+        if (board.isOpen(square)) {
+            balls[label[square]]++;
+        }
+    }
+
+    /**
+     * Record a ball's center moving from one square to another, both packed as
+     * row * columns + column.
+     */
+    public void moveBall(int from, int to) {
+        squareBalls[from]--;
+        if (board.isOpen(from)) {
+            balls[label[from]]--;
+        }
+        addBall(to);
+    }
+
+    /**
+     * Forget every ball. Called when the balls are cleared for a new level.
+     */
+    public void clearBalls() {
+        for (int i = 0; i < squareBalls.length; i++) {
+            squareBalls[i] = 0;
+        }
+        for (int i = 0; i < balls.length; i++) {
+            balls[i] = 0;
+        }
+    }
+
+    /**
+     * Return the number of regions created or cut down since the last call to
+     * clearChanged(). Their ids can be read through getChanged().
+     */
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Return the ids of the regions created or cut down since the last call to
+     * clearChanged(). Only the first getChangedCount() entries are meaningful.
+     */
+    public int[] getChanged() {
+        return changed;
+    }
+
+    /**
+     * Forget the regions recorded as changed
+     */
+    public void clearChanged() {
+        changedCount = 0;
+    }
+
+    /**
+     * Flood from the given y, x location until the given enclosed area has the same
+     * "fill" int, and return the number of squares filled. This is a scanline fill:
+     * each row is filled as one run out to the walls on either side, then a seed is
+     * pushed for every run of floodable squares directly above and below it. Seeds go
+     * on floodStack rather than the call stack, so board size doesn't matter.
+     */
+    public int flood(int y, int x, int fill) {
+        // don't go out of bounds
+        if (!isOnBoard(y, x)) {
+            return 0;
+        }
+
+        int filled = 0;
+        int size = 0;
+        floodStack[size++] = y * columns + x;
+
+        while (size > 0) {
+            int seed = floodStack[--size];
+            int row = seed / columns;
+            int column = seed % columns;
+
+            // may have been filled by another run since it was pushed
+            if (!isFloodableSquare(row, column, fill)) {
+                continue;
+            }
+
+            // find the ends of this run
+            int left = column;
+            while (left > 0 && isFloodableSquare(row, left - 1, fill)) {
+                left--;
+            }
+            int right = column;
+            while (right < columns - 1 && isFloodableSquare(row, right + 1, fill)) {
+                right++;
+            }
+
+            for (int j = left; j <= right; j++) {
+                label[row * columns + j] = fill;
+            }
+            filled += right - left + 1;
+
+            size = pushRuns(row - 1, left, right, fill, size);
+            size = pushRuns(row + 1, left, right, fill, size);
+        }
+        return filled;
+    }
+
+    /*
+        Push a seed onto floodStack for the start of every run of floodable squares in
+        the given row between left and right. Returns the new stack size.
+     */
+    private int pushRuns(int row, int left, int right, int fill, int size) {
+        if (row < 0 || row >= rows) {
+            return size;
+        }
+
+        boolean inRun = false;
+        for (int j = left; j <= right; j++) {
+            if (isFloodableSquare(row, j, fill)) {
+                if (!inRun) {
+                    floodStack[size++] = row * columns + j;
+                    inRun = true;
+                }
+            } else {
+                inRun = false;
+            }
+        }
+        return size;
+    }
+
+    /*
+        Return true if closing the given open square would join two parts of the same
+        closed component, enclosing something. Going round the 8 squares about it, the
+        closed ones are split into arcs by the open squares sharing a side with it (an
+        open corner doesn't split them, since closed squares touching diagonally are
+        still connected). If two different arcs belong to the same component, there's
+        already a path between them, and this square finishes a loop.
+     */
+    private boolean makesLoop(int row, int column) {
+        int start = -1;
+        for (int k = 0; k < 8; k += 2) {
+            if (isOpenNeighbour(row + RING_ROW[k], column + RING_COLUMN[k])) {
+                start = k;
+                break;
+            }
+        }
+        if (start < 0) {
+            return false; // nothing open next to it, so nothing to cut off
+        }
+
+        int count = 0;
+        int arc = 0;
+        for (int step = 1; step < 8; step++) {
+            int k = (start + step) % 8;
+            int i = row + RING_ROW[k];
+            int j = column + RING_COLUMN[k];
+
+            if (isOpenNeighbour(i, j)) {
+                if (k % 2 == 0) {
+                    arc++;
+                }
+                continue;
+            }
+
+            int root = find(isOnBoard(i, j) ? i * columns + j : border);
+            for (int h = 0; h < count; h++) {
+                if (ringRoot[h] == root && ringArc[h] != arc) {
+                    return true;
+                }
+            }
+            ringRoot[count] = root;
+            ringArc[count] = arc;
+            count++;
+        }
+        return false;
+    }
+
+    /*
+        Search outward from open squares a and b in the given region at the same time,
+        one square each in turn. If the searches meet, a and b are still connected and
+        nothing changes. If one of them runs out of squares first it has walked its
+        whole piece, which is then given a new region id.
+     */
+    private void separate(int a, int b, int region) {
+        searchMark += 2;
+        int markA = searchMark;
+        int markB = searchMark + 1;
+
+        int headA = 0;
+        int tailA = 0;
+        int headB = 0;
+        int tailB = 0;
+        queueA[tailA++] = a;
+        seen[a] = markA;
+        queueB[tailB++] = b;
+        seen[b] = markB;
+
+        while (true) {
+            if (headA == tailA) {
+                relabel(queueA, tailA, region);
+                return;
+            }
+            if (headB == tailB) {
+                relabel(queueB, tailB, region);
+                return;
+            }
+
+            tailA = expand(queueA[headA++], region, markA, markB, queueA, tailA);
+            if (tailA < 0) {
+                return; // met up with b
+            }
+            tailB = expand(queueB[headB++], region, markB, markA, queueB, tailB);
+            if (tailB < 0) {
+                return; // met up with a
+            }
+        }
+    }
+
+    /*
+        Add the unvisited neighbours of the given square in the region to the queue.
+        Returns the new end of the queue, or -1 if a square the other search has
+        already visited was found.
+     */
+    private int expand(int square, int region, int mark, int otherMark, int[] queue,
+                       int tail) {
+        int row = square / columns;
+        int column = square % columns;
+
+        for (int k = 0; k < 8; k += 2) {
+            int i = row + RING_ROW[k];
+            int j = column + RING_COLUMN[k];
+            if (!isInRegion(i, j, region)) {
+                continue;
+            }
+
+            int next = i * columns + j;
+            if (seen[next] == otherMark) {
+                return -1;
+            }
+            if (seen[next] != mark) {
+                seen[next] = mark;
+                queue[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+    /*
+        Move the given squares out of region into a brand new one, along with the
+        balls in them.
+     */
+    private void relabel(int[] squares, int count, int region) {
+        int id = freeIds[--freeCount];
+        int moved = 0;
+        for (int k = 0; k < count; k++) {
+            label[squares[k]] = id;
+            moved += squareBalls[squares[k]];
+        }
+        area[id] = count;
+        area[region] -= count;
+        anchor[id] = squares[0];
+        balls[id] = moved;
+        balls[region] -= moved;
+        addChanged(id);
+    }
+
+    /*
+        Union the closed square at the given row and column with every closed square
+        around it, and with the border if it's on the edge of the board.
+     */
+    private void joinNeighbours(int row, int column) {
+        int square = row * columns + column;
+        for (int k = 0; k < 8; k++) {
+            int i = row + RING_ROW[k];
+            int j = column + RING_COLUMN[k];
+            if (!isOnBoard(i, j)) {
+                union(square, border);
+            } else if (!isOpen(i, j)) {
+                union(square, i * columns + j);
+            }
+        }
+    }
+
+    /*
+        Return the root of the given closed square's component, halving the path on
+        the way up.
+     */
+    private int find(int square) {
+        while (parent[square] != square) {
+            parent[square] = parent[parent[square]];
+            square = parent[square];
+        }
+        return square;
+    }
+
+    /*
+        Join the components of two closed squares
+     */
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    /*
+        Record a region as changed, if it isn't already
+     */
+    private void addChanged(int region) {
+        for (int k = 0; k < changedCount; k++) {
+            if (changed[k] == region) {
+                return;
+            }
+        }
+        changed[changedCount++] = region;
+    }
+
+    /*
+        Return the region of the square with the given packed index, or 0 if it's not
+        open. Region ids start at 1.
+     */
+    private int labelOf(int square) {
+        return board.isOpen(square) ? label[square] : 0;
+    }
+
+    /*
+        Return true if the given row and column is on the board and an open square of
+        the given region
+     */
+    private boolean isInRegion(int row, int column, int region) {
+        return isOnBoard(row, column) && board.isOpen(row, column)
+                && label[row * columns + column] == region;
+    }
+
+    /*
+        Return true if the given row and column is on the board and open
+     */
+    private boolean isOpenNeighbour(int row, int column) {
+        return isOnBoard(row, column) && isOpen(row, column);
+    }
+
+    /*
+        Return true if the given square is neither a wall nor revealed
+     */
+    private boolean isOpen(int row, int column) {
+        return board.isOpen(row, column);
+    }
+
+    /*
+        Return true if the given row and column is inside the board
+     */
+    private boolean isOnBoard(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    /*
+        Return true if the given y, x is:
+        1. Not already filled with this fille
+        2. Is not a wall
+        3. Is not already flooded
+     */
+    private boolean isFloodableSquare(int y, int x, int fill) {
+        return board.isOpen(y, x) && label[y * columns + x] != fill;
+    }
+}
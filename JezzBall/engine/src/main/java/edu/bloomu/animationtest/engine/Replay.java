@@ -0,0 +1,279 @@
+package edu.bloomu.animationtest.engine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Everything needed to play a session over again: the board layout, the game mode it
+ * started in and the seed the GameEngine drew its balls from, plus every input the
+ * engine acted on and the tick it acted on it. Given the same seed and the same inputs
+ * on the same ticks, the engine always ends up in the same state.
+ * <p>
+ * The inputs are the pairs of walls picked up from interpretTouchEvent, the calls to
+ * nextLevel() and newGame(), and any switch of mode between games. They're packed
+ * into a byte stream as they happen. Each event starts with the number of ticks since
+ * the one before it and its kind, and a pair of walls adds the grid column and row it
+ * started from. Every number is written as a varint, 7 bits to a byte, so a typical
+ * event takes four or five bytes and a whole session fits in a few hundred.
+ * <p>
+ * ReplayRunner plays these back.
+ */
+
+public final class Replay {
+
+    // kinds of event in the stream
+    static final int HORIZONTAL_WALLS = 0;
+    static final int VERTICAL_WALLS = 1;
+    static final int NEXT_LEVEL = 2;
+    static final int NEW_GAME = 3;
+    static final int SWITCH_MODE = 4;
+
+    // bumped whenever the file layout or the engine's use of the seed changes
+    private static final int VERSION = 2;
+
+    private final BoardLayout layout;
+    private boolean chaosMode; // the mode the session started in
+    private final long seed;
+    private byte[] events;
+    private int length; // bytes of events in use
+    private long lastTick; // tick of the last event, the next one is stored relative to it
+    private long ticks; // how many ticks the session ran for
+
+    Replay(BoardLayout layout, boolean chaosMode, long seed) {
+        this.layout = layout;
+        this.chaosMode = chaosMode;
+        this.seed = seed;
+        events = new byte[64];
+    }
+
+    /*
+     * Record a pair of walls placed on the given tick, growing from the given column
+     * and row counted in squares from the top left of the screen
+     */
+    void addWalls(long tick, int column, int row, boolean horizontal) {
+        addEvent(tick, horizontal ? HORIZONTAL_WALLS : VERTICAL_WALLS);
+        putVarint(column);
+        putVarint(row);
+    }
+
+    /*
+     * Record an event with no data of its own, like NEXT_LEVEL
+     */
+    void addEvent(long tick, int kind) {
+        putVarint(tick - lastTick);
+        lastTick = tick;
+        putVarint(kind);
+    }
+
+    /*
+     * Set how many ticks the session has run for
+     */
+    void setTicks(long ticks) {
+        this.ticks = ticks;
+    }
+
+    /*
+     * Return a copy that won't see anything recorded from now on
+     */
+    Replay copy() {
+        Replay copy = new Replay(layout, chaosMode, seed);
+        copy.events = Arrays.copyOf(events, length);
+        copy.length = length;
+        copy.lastTick = lastTick;
+        copy.ticks = ticks;
+        return copy;
+    }
+
+    /**
+     * Return the layout of the board the session was played on
+     */
+    public BoardLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Return true if the session started in chaos mode
+     */
+    public boolean isChaosMode() {
+        return chaosMode;
+    }
+
+    /**
+     * Return the seed the engine drew its random numbers from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Return how many ticks the session ran for
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Return the size of the encoded events, in bytes
+     */
+    public int getSize() {
+        return length;
+    }
+
+    /**
+     * Write this replay to the given stream, in the format read() expects
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(VERSION);
+        data.writeInt(layout.getWidth());
+        data.writeInt(layout.getHeight());
+        data.writeInt(layout.getTop());
+        data.writeInt(layout.getPadding());
+        data.writeBoolean(chaosMode);
+        data.writeLong(seed);
+        data.writeLong(ticks);
+        data.writeInt(length);
+        data.write(events, 0, length);
+        data.flush();
+    }
+
+    /**
+     * Read a replay written by write(). Throws an IOException if the stream ends early
+     * or was written by a different version of the engine.
+     */
+    public static Replay read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int version = data.readInt();
+        if (version < 1 || version > VERSION) { // version 1 never switched mode
+            throw new IOException("Can't read replay version " + version);
+        }
+        BoardLayout layout = new BoardLayout(data.readInt(), data.readInt(),
+                data.readInt(), data.readInt());
+        Replay replay = new Replay(layout, data.readBoolean(), data.readLong());
+        replay.ticks = data.readLong();
+        replay.length = data.readInt();
+        replay.events = new byte[replay.length];
+        data.readFully(replay.events);
+        return replay;
+    }
+
+    /*
+     * Return how many bytes the events take in a GameEngine snapshot
+     */
+    int getSnapshotSize() {
+        return 1 + 8 + 4 + length;
+    }
+
+    /*
+     * Write the events recorded so far to a GameEngine snapshot, after the mode the
+     * session started in. The layout and seed are already in the snapshot.
+     */
+    void write(ByteBuffer buffer) {
+        buffer.put((byte) (chaosMode ? 1 : 0));
+        buffer.putLong(lastTick);
+        buffer.putInt(length);
+        buffer.put(events, 0, length);
+    }
+
+    /*
+     * Replace the events with those from a GameEngine snapshot, so recording carries
+     * on where it left off
+     */
+    void read(ByteBuffer buffer) {
+        chaosMode = buffer.get() != 0;
+        lastTick = buffer.getLong();
+        length = buffer.getInt();
+        events = new byte[Math.max(64, length * 2)];
+        buffer.get(events, 0, length);
+    }
+
+    /*
+     * Return a Cursor positioned before the first event
+     */
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    /*
+     * Append a non-negative number, 7 bits at a time with the high bit set on every
+     * byte but the last
+     */
+    private void putVarint(long value) {
+        if (length + 10 > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        while ((value & ~0x7FL) != 0) {
+            events[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        events[length++] = (byte) value;
+    }
+
+    /**
+     * Walks the events of a Replay in order. advance() decodes the next event, after
+     * which its tick, kind and any wall position can be read.
+     */
+    final class Cursor {
+
+        private int position;
+        private long tick;
+        private int kind;
+        private int column;
+        private int row;
+
+        private Cursor() {
+        }
+
+        /*
+         * Move on to the next event. Returns false if there are no more.
+         */
+        boolean advance() {
+            if (position >= length) {
+                return false;
+            }
+            tick += getVarint();
+            kind = (int) getVarint();
+            if (kind == HORIZONTAL_WALLS || kind == VERTICAL_WALLS) {
+                column = (int) getVarint();
+                row = (int) getVarint();
+            }
+            return true;
+        }
+
+        long getTick() {
+            return tick;
+        }
+
+        int getKind() {
+            return kind;
+        }
+
+        int getColumn() {
+            return column;
+        }
+
+        int getRow() {
+            return row;
+        }
+
+        /*
+         * Read back a number written by putVarint
+         */
+        private long getVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = events[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package edu.bloomu.animationtest.engine;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+/**
+ * Plays Replays back on a fresh GameEngine with nothing to draw, so sessions run as
+ * fast as the engine can tick. Used to reproduce a session from a field report, and
+ * to run a whole folder of sessions as a regression or performance check.
+ * <p>
+ * From the command line, takes any number of replay files or folders of them and
+ * prints where each session ended up, followed by how many sessions were played per
+ * second:
+ * <pre>
+ *     ./gradlew :engine:replay --args="sessions/"
+ * </pre>
+ */
+
+public class ReplayRunner {
+
+    /**
+     * Play the given replay from the start and return the engine as it was when the
+     * recording ended
+     */
+    public static GameEngine play(Replay replay) {
+        GameEngine engine = new GameEngine(replay.getLayout(), replay.isChaosMode(),
+                replay.getSeed());
+        Replay.Cursor events = replay.cursor();
+        boolean more = events.advance();
+
+        for (long tick = 0; tick < replay.getTicks(); tick++) {
+            // inputs are handed over before the tick that acted on them
+            while (more && events.getTick() <= tick) {
+                apply(engine, events);
+                more = events.advance();
+            }
+            engine.tick();
+        }
+        // anything after the last tick, like a new game that was never played
+        while (more) {
+            apply(engine, events);
+            more = events.advance();
+        }
+        return engine;
+    }
+
+    /**
+     * Replay every file named, or every file in each folder named, and print the
+     * results
+     */
+    public static void main(String[] args) throws IOException {
+        ArrayList<File> files = new ArrayList<>();
+        for (String arg : args) {
+            File file = new File(arg);
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    if (child.isFile()) {
+                        files.add(child);
+                    }
+                }
+            } else {
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: ReplayRunner <replay file or folder>...");
+            return;
+        }
+
+        ArrayList<Replay> replays = new ArrayList<>();
+        for (File file : files) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                replays.add(Replay.read(in));
+            }
+        }
+
+        long ticks = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < replays.size(); i++) {
+            Replay replay = replays.get(i);
+            GameEngine engine = play(replay);
+            ticks += replay.getTicks();
+            System.out.println(files.get(i).getName() + ": level " + engine.getLevel()
+                    + ", " + engine.getScoreAsPercentage() + "%, " + engine.getLives()
+                    + " lives" + (engine.isGameOver() ? ", over" : "") + " after "
+                    + replay.getTicks() + " ticks");
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.println(replays.size() + " sessions in "
+                + String.format("%.3f", seconds) + "s: " + (long) (replays.size() / seconds) + " sessions/sec, "
+                + (long) (ticks / seconds) + " ticks/sec");
+    }
+
+    /*
+     * Hand the event the cursor is on to the engine
+     */
+    private static void apply(GameEngine engine, Replay.Cursor event) {
+        switch (event.getKind()) {
+            case Replay.HORIZONTAL_WALLS:
+                engine.replayWalls(event.getColumn(), event.getRow(), true);
+                break;
+            case Replay.VERTICAL_WALLS:
+                engine.replayWalls(event.getColumn(), event.getRow(), false);
+                break;
+            case Replay.NEXT_LEVEL:
+                engine.nextLevel();
+                break;
+            case Replay.NEW_GAME:
+                engine.newGame();
+                break;
+            case Replay.SWITCH_MODE:
+                engine.switchChaosMode();
+                break;
+        }
+    }
+}
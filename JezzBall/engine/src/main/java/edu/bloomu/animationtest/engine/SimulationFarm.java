@@ -0,0 +1,249 @@
+package edu.bloomu.animationtest.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays thousands of games per level with nothing to draw, to see how hard each level
+ * really is with the engine's current constants. A Policy stands in for the player and
+ * decides where the walls go.
+ * <p>
+ * The games are split into batches and spread over a thread pool, one thread per core
+ * by default. Each game gets its own GameEngine, seeded from the farm's seed, the level
+ * and the game's number, so the numbers that come out only depend on the seed and not
+ * on how many threads played them or in what order.
+ * <p>
+ * From the command line, takes the number of games per level, the number of levels and
+ * the policy, prints a CSV line per level, and reports games per second on stderr:
+ * <pre>
+ *     ./gradlew :engine:farm --args="1000 12 cautious"
+ * </pre>
+ */
+
+public class SimulationFarm {
+
+    // the app's layout on a 1080x2200 screen
+    private static final BoardLayout DEFAULT_LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+    // games each task plays before handing its results back
+    private static final int BATCH_SIZE = 32;
+    // a game that's still going after ten minutes of play is given up on as a loss
+    private static final int MAX_TICKS = 60 * 60 * 10;
+
+    private final BoardLayout layout;
+    private final boolean chaosMode;
+    private final Policy policy;
+    private final int threads;
+
+    /**
+     * Create a farm that plays on the given layout and mode with one thread per core
+     */
+    public SimulationFarm(BoardLayout layout, boolean chaosMode, Policy policy) {
+        this(layout, chaosMode, policy, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a farm that plays on the given layout and mode with the given number of
+     * threads
+     */
+    public SimulationFarm(BoardLayout layout, boolean chaosMode, Policy policy,
+                          int threads) {
+        this.layout = layout;
+        this.chaosMode = chaosMode;
+        this.policy = policy;
+        this.threads = threads;
+    }
+
+    /**
+     * Play the given number of games on each of levels 1 to levels and return how they
+     * went, one LevelStats per level in order
+     */
+    public LevelStats[] run(int levels, int gamesPerLevel, final long seed)
+            throws InterruptedException {
+        List<Callable<LevelStats>> tasks = new ArrayList<>();
+        for (int level = 1; level <= levels; level++) {
+            for (int first = 0; first < gamesPerLevel; first += BATCH_SIZE) {
+                final int batchLevel = level;
+                final int from = first;
+                final int to = Math.min(first + BATCH_SIZE, gamesPerLevel);
+                tasks.add(new Callable<LevelStats>() {
+                    @Override
+                    public LevelStats call() {
+                        return playBatch(batchLevel, from, to, seed);
+                    }
+                });
+            }
+        }
+
+        LevelStats[] stats = new LevelStats[levels];
+        for (int i = 0; i < levels; i++) {
+            stats[i] = new LevelStats(i + 1);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<LevelStats> batch : pool.invokeAll(tasks)) {
+                LevelStats result = batch.get();
+                stats[result.getLevel() - 1].add(result);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return stats;
+    }
+
+    /**
+     * Run the farm from the command line and print the results as CSV
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int levels = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        Policy policy = args.length > 2 ? Policy.valueOf(args[2].toUpperCase())
+                : Policy.RANDOM;
+        SimulationFarm farm = new SimulationFarm(DEFAULT_LAYOUT, false, policy);
+
+        long started = System.nanoTime();
+        LevelStats[] stats = farm.run(levels, games, 0);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.println("level,games,win_rate,avg_ticks_to_clear,avg_lives_lost");
+        for (LevelStats level : stats) {
+            System.out.println(level.getLevel() + "," + level.getGames() + ","
+                    + String.format("%.3f,%.1f,%.3f", level.getWinRate(),
+                    level.getAverageTicksToClear(), level.getAverageLivesLost()));
+        }
+        // stderr, so the CSV can be redirected to a file on its own
+        System.err.println(games * levels + " games on " + farm.threads + " threads in "
+                + String.format("%.3f", seconds) + "s: "
+                + (long) (games * levels / seconds) + " games/sec");
+    }
+
+    /*
+     * Play games from up to to on the given level, each on its own engine, and return
+     * how they went
+     */
+    private LevelStats playBatch(int level, int from, int to, long seed) {
+        LevelStats stats = new LevelStats(level);
+        for (int game = from; game < to; game++) {
+            long gameSeed = seed + ((long) level << 32) + game;
+            GameEngine engine = new GameEngine(layout, chaosMode, gameSeed);
+            // nextLevel() is how a real game gets here, extra life and all
+            for (int i = 1; i < level; i++) {
+                engine.nextLevel();
+            }
+            Random random = new Random(~gameSeed);
+            int lives = engine.getLives();
+
+            int ticks = 0;
+            while (!engine.isGameOver() && ticks < MAX_TICKS) {
+                if (engine.getWalls().isEmpty()) {
+                    policy.play(engine, random);
+                }
+                engine.tick();
+                ticks++;
+            }
+            stats.add(engine.isBeatLevel(), ticks, lives - engine.getLives());
+        }
+        return stats;
+    }
+
+    /*
+     * Pick a random square a wall could start from and put its column and row, counted
+     * from the top left of the screen as replayWalls() wants them, in square. Returns
+     * false if a few tries didn't turn one up.
+     */
+    private static boolean pickOpenSquare(GameEngine engine, Random random, int[] square) {
+        float dimension = engine.getDimension();
+        Board board = engine.getBoard();
+        int firstRow = (int) Math.floor(engine.getLayout().getTop() / dimension);
+        for (int attempt = 0; attempt < 20; attempt++) {
+            int column = random.nextInt(board.getColumns());
+            int row = firstRow + random.nextInt(board.getRows() + 1);
+            if (engine.isOpenSquare((column + .5f) * dimension, (row + .5f) * dimension)) {
+                square[0] = column;
+                square[1] = row;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stand-ins for the player. play() is called every tick that no walls are growing,
+     * and places a pair when it's ready to.
+     */
+    public enum Policy {
+        /**
+         * Walls go on any open square, either way, about twice a second
+         */
+        RANDOM {
+            @Override
+            void play(GameEngine engine, Random random) {
+                if (random.nextInt(PACE) != 0) {
+                    return;
+                }
+                int[] square = new int[2];
+                if (pickOpenSquare(engine, random, square)) {
+                    engine.replayWalls(square[0], square[1], random.nextBoolean());
+                }
+            }
+        },
+
+        /**
+         * At the same pace, looks at a handful of random placements and takes the one
+         * whose line stays furthest from every ball, roughly what a careful player does
+         */
+        CAUTIOUS {
+            @Override
+            void play(GameEngine engine, Random random) {
+                if (random.nextInt(PACE) != 0) {
+                    return;
+                }
+                float dimension = engine.getDimension();
+                ArrayList<Ball> balls = engine.getBalls();
+                int[] square = new int[2];
+                int bestColumn = -1;
+                int bestRow = -1;
+                boolean bestHorizontal = false;
+                double bestGap = -1;
+
+                for (int i = 0; i < CANDIDATES; i++) {
+                    if (!pickOpenSquare(engine, random, square)) {
+                        continue;
+                    }
+                    boolean horizontal = random.nextBoolean();
+                    double x = (square[0] + .5) * dimension;
+                    double y = (square[1] + .5) * dimension;
+                    double gap = Double.MAX_VALUE;
+                    for (int j = 0; j < balls.size(); j++) {
+                        Ball ball = balls.get(j);
+                        gap = Math.min(gap, horizontal ? Math.abs(ball.getY() - y)
+                                : Math.abs(ball.getX() - x));
+                    }
+                    if (gap > bestGap) {
+                        bestGap = gap;
+                        bestColumn = square[0];
+                        bestRow = square[1];
+                        bestHorizontal = horizontal;
+                    }
+                }
+                if (bestColumn >= 0) {
+                    engine.replayWalls(bestColumn, bestRow, bestHorizontal);
+                }
+            }
+        };
+
+        // one in this many ticks without walls is when the policy decides to place
+        private static final int PACE = 30;
+        // placements CAUTIOUS weighs up each time
+        private static final int CANDIDATES = 8;
+
+        abstract void play(GameEngine engine, Random random);
+    }
+}
@@ -0,0 +1,157 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * Uniform spatial hash used as the broad phase for ball-vs-ball collisions. The game
+ * area is divided into square cells, and every tick the balls are bucketed into those
+ * cells with a counting sort. Two balls can only be touching if they sit in the same
+ * or neighbouring cells, so only those pairs need to be handed to
+ * Ball.ballCollisionAdjustment.
+ * <p>
+ * Cell size is a whole number of grid squares from the GameEngine, chosen so that a
+ * ball's diameter never spans more than one cell. That keeps the neighbour search to
+ * the 3x3 block of cells around each ball.
+ * <p>
+ * All storage is kept in primitive arrays that are only reallocated when the number
+ * of balls grows, so rebuilding the hash every tick does not create garbage.
+ */
+
+public class SpatialHash {
+
+    private final float cellSize;
+    private final float originX;
+    private final float originY;
+    private final int columns;
+    private final int rows;
+
+    private final int[] cellStart; // index into sorted of the first ball in each cell
+    private final int[] cursor; // next free slot in sorted for each cell while rebuilding
+    private int[] ballCell; // which cell each ball landed in this tick
+    private int[] sorted; // ball indices ordered by cell
+    private int[] pairs; // candidate pairs, stored as [a0, b0, a1, b1, ...]
+    private int pairCount;
+
+    public SpatialHash(float cellSize, float originX, float originY, float width,
+                       float height) {
+        this.cellSize = cellSize;
+        this.originX = originX;
+        this.originY = originY;
+        columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+
+        // one extra slot so cellStart[c + 1] is always the end of cell c
+        cellStart = new int[columns * rows + 1];
+        cursor = new int[columns * rows];
+        ballCell = new int[0];
+        sorted = new int[0];
+        pairs = new int[0];
+    }
+
+    /**
+     * Bucket the first count balls, given by their center coordinates, into cells.
+     * Must be called before findPairs() every tick the balls have moved.
+     */
+    public void rebuild(double[] x, double[] y, int count) {
+        if (ballCell.length < count) {
+            ballCell = new int[count];
+            sorted = new int[count];
+            // balls can't overlap, so only a handful fit in the neighbouring cells.
+            // Sizing for that up front means findPairs() doesn't need to grow later.
+            if (pairs.length < 16 * count) {
+                pairs = new int[16 * count];
+            }
+        }
+
+        for (int i = 0; i < cellStart.length; i++) {
+            cellStart[i] = 0;
+        }
+
+        // count the balls in each cell
+        for (int i = 0; i < count; i++) {
+            int cell = cellOf(x[i], y[i]);
+            ballCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+
+        // running total turns the counts into start positions
+        for (int i = 1; i < cellStart.length; i++) {
+            cellStart[i] += cellStart[i - 1];
+        }
+
+        // drop each ball into the next free slot of its cell
+        System.arraycopy(cellStart, 0, cursor, 0, cursor.length);
+        for (int i = 0; i < count; i++) {
+            sorted[cursor[ballCell[i]]++] = i;
+        }
+    }
+
+    /**
+     * Collect every pair of balls that share a cell or sit in neighbouring cells.
+     * Each pair is reported exactly once, with the lower index first, and a ball is
+     * never paired with itself. Returns the number of pairs found, which can then be
+     * read through getPairs().
+     */
+    public int findPairs(int count) {
+        pairCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            int column = ballCell[i] % columns;
+            int row = ballCell[i] / columns;
+
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1,
+                        column + 1); c++) {
+                    int cell = r * columns + c;
+
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = sorted[k];
+                        if (j > i) {
+                            addPair(i, j);
+                        }
+                    }
+                }
+            }
+        }
+        return pairCount;
+    }
+
+    /**
+     * Return the candidate pairs from the last call to findPairs(). Pair k is made up
+     * of the balls at indices 2k and 2k + 1.
+     */
+    public int[] getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Return the width and height of a single cell
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    /*
+     * Convert a coordinate into a cell index, clamping anything outside of the game
+     * area into the nearest edge cell.
+     */
+    private int cellOf(double x, double y) {
+        int column = (int) Math.floor((x - originX) / cellSize);
+        int row = (int) Math.floor((y - originY) / cellSize);
+        column = Math.max(0, Math.min(columns - 1, column));
+        row = Math.max(0, Math.min(rows - 1, row));
+        return row * columns + column;
+    }
+
+    /*
+     * Append a pair, doubling the storage if it is full.
+     */
+    private void addPair(int a, int b) {
+        if (2 * pairCount + 1 >= pairs.length) {
+            int[] grown = new int[Math.max(16, pairs.length * 2)];
+            System.arraycopy(pairs, 0, grown, 0, 2 * pairCount);
+            pairs = grown;
+        }
+        pairs[2 * pairCount] = a;
+        pairs[2 * pairCount + 1] = b;
+        pairCount++;
+    }
+}
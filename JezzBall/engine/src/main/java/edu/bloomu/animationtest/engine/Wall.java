@@ -0,0 +1,101 @@
+package edu.bloomu.animationtest.engine;
+
+/**
+ * View over a single wall drawn by the user to divide the game space, held in an
+ * EntityStore. The store keeps the bounds, growth and state of every wall in parallel
+ * arrays; this class reads one slot of them and carries the color used to render it.
+ * If we consider the left, right, top, and bottom
+ * coordinates that define the rectangle a Wall resides in, only one of those
+ * dimensions will ever change, based on the Direction the wall was created with.
+ * <p>
+ * Walls are only created "locked" into an x,y grid, and therefore only grow at fixed
+ * intervals. That is, if the thickness of a wall is 10, it can only grow through
+ * 10->20->30->etc.
+ *
+ * @author Dakotah Kurtz
+ */
+
+public class Wall {
+
+    private final EntityStore store;
+    private int index; // changes if another wall is removed from the store
+
+    private int color; // ARGB, the same format as android.graphics.Color
+
+    private final Bounds rect; // bounding box for Wall, refreshed by getRect()
+
+    Wall(EntityStore store, int index, int color) {
+        this.store = store;
+        this.index = index;
+        this.color = color;
+
+        rect = new Bounds();
+    }
+
+    /**
+     * Return the color this Wall should be drawn in, as an ARGB int
+     */
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * Return true if this Wall is currently moving
+     */
+    public boolean isMoving() {
+        return store.wallMoving[index];
+    }
+
+    /**
+     * Return the Direction this wall is growing/grew
+     */
+    public Direction getDirection() {
+        return store.wallDirection[index];
+    }
+
+    /**
+     * Returns whether this Wall in it's final location has been drawn to the canvas
+     */
+    public boolean isDrawn() {
+        return store.wallDrawn[index];
+    }
+
+    /**
+     * Sets the value of the isDrawn field
+     */
+    public void setDrawn(boolean b) {
+        store.wallDrawn[index] = b;
+    }
+
+    /**
+     * Return the current bounding of this Wall. The same Bounds is updated and
+     * returned on every call.
+     */
+    public Bounds getRect() {
+        rect.set(store.wallLeft[index], store.wallTop[index], store.wallRight[index],
+                store.wallBottom[index]);
+        return rect;
+    }
+
+    /**
+     * Return the index of this Wall in its EntityStore
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /*
+     * Called by the EntityStore when this Wall is moved to a new slot
+     */
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /*
+     * Called by the EntityStore when this view is handed out again for a new wall
+     */
+    void reuse(int index, int color) {
+        this.index = index;
+        this.color = color;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks growing walls end up where aimWall() said they would.
+ */
+public class EntityStoreTest {
+
+    private static final int COLUMNS = 30;
+    private static final int ROWS = 50;
+    private static final int TOP = 300;
+    private static final float DIMENSION = 36;
+
+    @Test
+    public void wallsStopAtTheirAim() {
+        EntityStore store = new EntityStore(new BoardLayout((int) (COLUMNS * DIMENSION),
+                (int) (ROWS * DIMENSION) + TOP, TOP, 20));
+        Board board = new Board(ROWS, COLUMNS);
+        board.fill(Board.OPEN);
+        board.set(4, 20, Board.WALL);
+        board.set(30, 7, Board.WALL);
+
+        Wall right = store.addWall(5 * DIMENSION, 4 * DIMENSION + TOP, DIMENSION,
+                Direction.Right, 0);
+        Wall left = store.addWall(4 * DIMENSION, 4 * DIMENSION + TOP, DIMENSION,
+                Direction.Left, 0);
+        Wall down = store.addWall(7 * DIMENSION, 10 * DIMENSION + TOP, DIMENSION,
+                Direction.Down, 0);
+        for (Wall wall : new Wall[]{right, left, down}) {
+            store.aimWall(wall.getIndex(), board, DIMENSION);
+        }
+        assertEquals(20 * DIMENSION, store.wallStop[right.getIndex()], 0);
+        assertEquals(0, store.wallStop[left.getIndex()], 0);
+        assertEquals(30 * DIMENSION + TOP, store.wallStop[down.getIndex()], 0);
+
+        for (int tick = 0; tick < 60 * 60 && (right.isMoving() || left.isMoving()
+                || down.isMoving()); tick++) {
+            for (int i = 0; i < store.wallCount; i++) {
+                if (store.wallMoving[i]) {
+                    store.growWall(i, GameEngine.TICK_SECONDS);
+                }
+            }
+        }
+        assertFalse(right.isMoving() || left.isMoving() || down.isMoving());
+        assertEquals(20 * DIMENSION, right.getRect().right, 0);
+        assertEquals(0, left.getRect().left, 0);
+        assertEquals(30 * DIMENSION + TOP, down.getRect().bottom, 0);
+    }
+}
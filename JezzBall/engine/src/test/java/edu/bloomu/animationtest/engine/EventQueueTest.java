@@ -0,0 +1,108 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks events cross from the publishing thread to the draining one in order, and
+ * that a game reports everything that happened in it.
+ */
+public class EventQueueTest {
+
+    private static final int EVENTS = 100_000;
+
+    @Test
+    public void eventsArriveInOrderAcrossThreads() throws InterruptedException {
+        final EventQueue queue = new EventQueue(64);
+        Thread publisher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < EVENTS; ) {
+                    if (queue.publish(EventQueue.REGION_REVEALED, i)) {
+                        i++;
+                    } else {
+                        Thread.yield(); // full, give the drainer a turn
+                    }
+                }
+            }
+        });
+        publisher.start();
+
+        final int[] next = {0};
+        EventQueue.Listener listener = new EventQueue.Listener() {
+            @Override
+            public void onEvent(int kind, int value) {
+                assertEquals(EventQueue.REGION_REVEALED, kind);
+                assertEquals(next[0]++, value);
+            }
+        };
+        while (next[0] < EVENTS) {
+            if (queue.drain(listener) == 0) {
+                Thread.yield();
+            }
+        }
+        publisher.join();
+        assertEquals(0, queue.drain(listener));
+    }
+
+    @Test
+    public void gameReportsLivesAndItsEnd() {
+        GameEngine engine = new GameEngine(new BoardLayout(1080, 2200, 300, 20), false, 5);
+        engine.nextLevel();
+        engine.nextLevel();
+        final int lives = engine.getLives();
+        Random random = new Random(5);
+        final int[] counts = new int[5];
+        final int[] lastLives = {lives};
+        EventQueue.Listener listener = new EventQueue.Listener() {
+            @Override
+            public void onEvent(int kind, int value) {
+                counts[kind]++;
+                if (kind == EventQueue.LIFE_LOST) {
+                    lastLives[0] = value;
+                }
+            }
+        };
+
+        for (int tick = 0; tick < 60 * 60 * 10 && !engine.isGameOver(); tick++) {
+            if (engine.getWalls().isEmpty()) {
+                SimulationFarm.Policy.RANDOM.play(engine, random);
+            }
+            engine.tick();
+            engine.getEvents().drain(listener);
+        }
+
+        assertTrue(engine.isGameOver());
+        assertEquals(1, counts[EventQueue.LEVEL_WON] + counts[EventQueue.GAME_OVER]);
+        assertEquals(lives - engine.getLives(), counts[EventQueue.LIFE_LOST]);
+        assertEquals(engine.getLives(), lastLives[0]);
+        assertTrue(counts[EventQueue.WALL_DESTROYED] <= counts[EventQueue.LIFE_LOST]);
+        assertEquals(0, engine.getEvents().getDropped());
+    }
+
+    @Test
+    public void levelIsWonRightOnTheWinningScore() {
+        GameEngine engine = new GameEngine(new BoardLayout(1080, 2200, 300, 20), false, 5);
+        Board board = engine.getBoard();
+        // the first square that takes it to 100% puts the score right on the target
+        for (int square = 0; engine.getScoreAsPercentage() < 100; square++) {
+            engine.closeSquare(square / board.getColumns(), square % board.getColumns());
+        }
+        final int[] counts = new int[5];
+        engine.tick();
+        engine.getEvents().drain(new EventQueue.Listener() {
+            @Override
+            public void onEvent(int kind, int value) {
+                counts[kind]++;
+            }
+        });
+
+        assertTrue(engine.isGameOver());
+        assertTrue(engine.isBeatLevel());
+        assertEquals(1, counts[EventQueue.LEVEL_WON]);
+        assertEquals(0, counts[EventQueue.GAME_OVER]);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the drawing side of a FrameBuffer only ever sees whole frames, newest last,
+ * and that frames pick up changes to the board.
+ */
+public class FrameBufferTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+    private static final int TICKS = 5000;
+
+    @Test
+    public void latestFrameIsNeverWrittenWhileRead() throws InterruptedException {
+        final GameEngine engine = new GameEngine(LAYOUT, false, 3);
+        engine.addBalls(20);
+        final FrameBuffer frames = new FrameBuffer();
+        Thread simulation = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < TICKS; i++) {
+                    engine.tick();
+                    engine.writeFrame(frames.getBack());
+                    frames.publish();
+                }
+            }
+        });
+        simulation.start();
+
+        long lastTick = -1;
+        while (lastTick < TICKS) {
+            Frame frame = frames.getLatest();
+            long tick = frame.getTick();
+            assertTrue(tick >= lastTick);
+            // a frame being overwritten part way through would change under us
+            float sum = 0;
+            for (int i = 0; i < frame.getBallCount(); i++) {
+                sum += frame.getBallX(i, 1) + frame.getBallY(i, 1);
+            }
+            float again = 0;
+            for (int i = 0; i < frame.getBallCount(); i++) {
+                again += frame.getBallX(i, 1) + frame.getBallY(i, 1);
+            }
+            assertEquals(tick, frame.getTick());
+            assertEquals(sum, again, 0);
+            lastTick = tick;
+            Thread.yield();
+        }
+        simulation.join();
+    }
+
+    @Test
+    public void frameCopiesTheBoardWhenItChanges() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 3);
+        Frame frame = new Frame();
+        engine.writeFrame(frame);
+        int version = frame.getBoardVersion();
+        engine.writeFrame(frame);
+        assertEquals(version, frame.getBoardVersion());
+        assertTrue(frame.getBoard().isOpen(2, 3));
+
+        engine.closeSquare(2, 3);
+        engine.writeFrame(frame);
+        assertTrue(frame.getBoardVersion() != version);
+        assertFalse(frame.getBoard().isOpen(2, 3));
+        assertEquals(engine.getBoard().count(Board.OPEN), frame.getBoard().count(Board.OPEN));
+    }
+}
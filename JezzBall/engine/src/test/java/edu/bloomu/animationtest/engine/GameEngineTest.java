@@ -0,0 +1,107 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the engine on the plain JVM, with no Android classes on the classpath, and
+ * checks balls bounce off the walls baked into the grid, and that a long step can't
+ * carry a ball through a wall or another ball.
+ */
+public class GameEngineTest {
+
+    private static final int TICKS = 6000;
+    private static final int TOP = 300;
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, TOP, 20);
+    // a square near the middle of LAYOUT's board
+    private static final int ROW = 20;
+    private static final int COLUMN = 15;
+    private static final double BALL_SPEED = 210;
+
+    @Test
+    public void enginesInOneProcessDoNotShareState() {
+        GameEngine small = new GameEngine(new BoardLayout(720, 1280, 200, 20), false);
+        GameEngine large = new GameEngine(new BoardLayout(1080, 2200, 300, 30), false);
+        large.addBalls(10);
+
+        int smallBalls = small.getBalls().size();
+        for (int i = 0; i < TICKS; i++) {
+            small.tick();
+            large.tick();
+        }
+
+        assertEquals(smallBalls, small.getBalls().size());
+        assertTrue(small.getBoard().getSize() != large.getBoard().getSize());
+        assertBallsOnBoard(small, 720, 1280, 200);
+        assertBallsOnBoard(large, 1080, 2200, 300);
+    }
+
+    @Test
+    public void fastBallBouncesOffASingleSquare() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 5);
+        float size = engine.getDimension();
+        engine.closeSquare(ROW, COLUMN);
+        // far more than a square and a ball's width every step
+        engine.placeBall(0, 300, TOP + (ROW + .5) * size, 4000, 0);
+        Ball ball = engine.getBalls().get(0);
+
+        boolean bounced = false;
+        for (int step = 0; step < 4; step++) {
+            engine.tick(GameEngine.MAX_STEP_SECONDS);
+            assertTrue(ball.getX() + ball.getRadius() <= COLUMN * size + 1e-3);
+            bounced |= ball.getDx() < 0;
+        }
+        assertTrue(bounced);
+    }
+
+    @Test
+    public void ballStaysOnItsSideOfAWallInTheGrid() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 5);
+        float size = engine.getDimension();
+        for (int row = 0; row < engine.getBoard().getRows(); row++) {
+            engine.closeSquare(row, COLUMN);
+        }
+        engine.placeBall(0, 300, 1200, BALL_SPEED * .6, BALL_SPEED * .8);
+        Ball ball = engine.getBalls().get(0);
+
+        boolean bounced = false;
+        for (int tick = 0; tick < TICKS; tick++) {
+            engine.tick();
+            assertTrue(ball.getX() + ball.getRadius() <= COLUMN * size + 1e-3);
+            bounced |= ball.getX() + ball.getRadius() > COLUMN * size - 1;
+        }
+        assertTrue(bounced);
+    }
+
+    @Test
+    public void ballsClosingWithinOneStepBounceApart() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 5);
+        engine.addBalls(1);
+        Ball a = engine.getBalls().get(0);
+        Ball b = engine.getBalls().get(1);
+        // 20 pixels apart closing at 420 a second, they meet 0.048s into the step
+        float reach = a.getRadius() + b.getRadius();
+        engine.placeBall(0, 300, 1200, BALL_SPEED, 0);
+        engine.placeBall(1, 300 + reach + 20, 1200, -BALL_SPEED, 0);
+
+        engine.tick(GameEngine.MAX_STEP_SECONDS);
+        assertTrue(a.getDx() < 0);
+        assertTrue(b.getDx() > 0);
+        assertTrue(b.getX() - a.getX() >= reach - 1e-3);
+        // they go out for 20 / 420 seconds and come back for the rest of the step
+        double impact = 20 / (2 * BALL_SPEED);
+        double back = GameEngine.MAX_STEP_SECONDS - impact;
+        assertEquals(300 + BALL_SPEED * (impact - back), a.getX(), .5);
+    }
+
+    /*
+     * Every ball should still be inside the part of the screen below the options bar.
+     */
+    private void assertBallsOnBoard(GameEngine engine, int width, int height, int top) {
+        for (Ball ball : engine.getBalls()) {
+            assertTrue(ball.getX() >= 0 && ball.getX() <= width);
+            assertTrue(ball.getY() >= top && ball.getY() <= height);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks a Gesture tells walls from taps and diagonals, and that the helper line and
+ * the engine share one preview per gesture.
+ */
+public class GestureTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+
+    @Test
+    public void directionFollowsTheWholeGesture() {
+        Gesture gesture = new Gesture();
+        for (int i = 0; i < GameEngine.WALL_TOUCH_INTENTION; i++) {
+            gesture.add(500 + i * 5, 1000 + i);
+        }
+        assertEquals(Gesture.HORIZONTAL, gesture.getDirection());
+        assertTrue(gesture.isWall());
+
+        // dragged off at 45 degrees, it's no longer clear
+        gesture.add(700, 1200);
+        assertEquals(Gesture.NONE, gesture.getDirection());
+        assertFalse(gesture.isWall());
+
+        gesture.add(510, 1400);
+        assertEquals(Gesture.VERTICAL, gesture.getDirection());
+        assertEquals(500, gesture.getFirstX(), 0);
+        assertEquals(1400, gesture.getLastY(), 0);
+
+        gesture.reset();
+        gesture.add(10, 10);
+        assertFalse(gesture.isWall());
+        assertTrue(gesture.isWithin(0, 0, 20, 20));
+        assertFalse(gesture.isWithin(0, 0, 5, 20));
+    }
+
+    @Test
+    public void historicalSamplesDoNotCountTowardsAWall() {
+        Gesture gesture = new Gesture();
+        gesture.add(500, 1000);
+        // a quick flick, delivered as two events with plenty of history between them
+        for (int i = 1; i < 4 * GameEngine.WALL_TOUCH_INTENTION; i++) {
+            gesture.addHistorical(500 + i * 5, 1000);
+        }
+        gesture.add(900, 1000);
+
+        assertEquals(2, gesture.getCount());
+        assertEquals(Gesture.HORIZONTAL, gesture.getDirection());
+        assertEquals(900, gesture.getLastX(), 0);
+        assertFalse(gesture.isWall());
+    }
+
+    @Test
+    public void previewIsReusedUntilTheBoardChanges() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 3);
+        Frame frame = new Frame();
+        engine.writeFrame(frame);
+        Gesture gesture = new Gesture();
+        for (int i = 0; i < GameEngine.WALL_TOUCH_INTENTION; i++) {
+            gesture.add(540 + i * 5, 1200);
+        }
+
+        assertTrue(engine.previewWalls(gesture, frame));
+        assertEquals(Gesture.HORIZONTAL, gesture.getPreviewDirection());
+        assertEquals(engine.findWallStop(540, 1200, Direction.Left),
+                gesture.getPreviewFrom(), 0);
+        assertEquals(engine.findWallStop(540, 1200, Direction.Right),
+                gesture.getPreviewTo(), 0);
+        assertTrue(gesture.hasPreview(engine.getBoard().getVersion()));
+
+        // wall off a column to the right, the preview has to be worked out again
+        float to = gesture.getPreviewTo();
+        for (int row = 0; row < engine.getBoard().getRows(); row++) {
+            engine.closeSquare(row, 25);
+        }
+        assertFalse(gesture.hasPreview(engine.getBoard().getVersion()));
+        engine.writeFrame(frame);
+        assertTrue(engine.previewWalls(gesture, frame));
+        assertTrue(gesture.getPreviewTo() < to);
+
+        engine.interpretTouchEvent(gesture);
+        engine.tick();
+        assertEquals(2, engine.getWalls().size());
+    }
+
+    @Test
+    public void wallsFromAStaleFrameAreCheckedWhenPlaced() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 3);
+        Frame frame = new Frame();
+        engine.writeFrame(frame);
+        Gesture gesture = new Gesture();
+        for (int i = 0; i < GameEngine.WALL_TOUCH_INTENTION; i++) {
+            gesture.add(540 + i * 5, 1200);
+        }
+
+        // the column is walled off after the frame was taken, but before the tick
+        engine.interpretTouchEvent(gesture, frame);
+        int column = (int) Math.floor(540 / engine.getDimension());
+        for (int row = 0; row < engine.getBoard().getRows(); row++) {
+            engine.closeSquare(row, column);
+        }
+        engine.tick();
+        assertEquals(0, engine.getWalls().size());
+    }
+}
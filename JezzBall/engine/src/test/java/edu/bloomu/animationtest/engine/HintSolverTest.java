@@ -0,0 +1,40 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the HintSolver answers within its budget with a placement the player could
+ * actually make.
+ */
+public class HintSolverTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+    private static final long BUDGET_NANOS = 250_000_000L;
+
+    @Test
+    public void hintIsAPlayablePlacement() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 7);
+        engine.addBalls(2);
+        for (int tick = 0; tick < 60; tick++) {
+            engine.tick();
+        }
+        ByteBuffer snapshot = ByteBuffer.allocate(engine.getSnapshotSize());
+        engine.writeSnapshot(snapshot);
+        snapshot.flip();
+
+        long started = System.nanoTime();
+        Hint hint = new HintSolver().solve(snapshot, LAYOUT, false, BUDGET_NANOS);
+        long took = System.nanoTime() - started;
+
+        assertNotNull(hint);
+        assertTrue(hint.getTried() > 0);
+        assertTrue(engine.isOpenSquare(hint.getX(), hint.getY()));
+        assertTrue(hint.getSurvival() >= 0 && hint.getSurvival() <= 1);
+        // allow for the tries already running when time is up
+        assertTrue(took < 2 * BUDGET_NANOS);
+    }
+}
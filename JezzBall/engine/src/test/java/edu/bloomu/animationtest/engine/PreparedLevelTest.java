@@ -0,0 +1,69 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks a level set up ahead of time, on another thread, starts exactly like one
+ * set up when it's reached, and that a plan the game has moved on from is ignored.
+ */
+public class PreparedLevelTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+
+    @Test
+    public void preparedLevelStartsTheSame() throws InterruptedException {
+        GameEngine engine = new GameEngine(LAYOUT, true, 7);
+        GameEngine prefetched = new GameEngine(LAYOUT, true, 7);
+        for (int level = 1; level < 5; level++) {
+            final PreparedLevel next = prefetched.planNextLevel();
+            assertEquals(level + 1, next.getLevel());
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    next.prepare();
+                }
+            });
+            worker.start();
+            for (int tick = 0; tick < 100; tick++) {
+                engine.tick();
+                prefetched.tick();
+            }
+            worker.join();
+
+            engine.nextLevel();
+            prefetched.nextLevel(next);
+            assertArrayEquals(snapshot(engine), snapshot(prefetched));
+        }
+    }
+
+    @Test
+    public void staleLevelIsSetUpAgain() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 11);
+        GameEngine fresh = new GameEngine(LAYOUT, false, 11);
+        PreparedLevel next = engine.planNextLevel();
+        next.prepare();
+
+        // a new game is started before the player gets to the next level
+        engine.newGame();
+        fresh.newGame();
+        engine.nextLevel();
+        fresh.nextLevel();
+        engine.nextLevel(next);
+        fresh.nextLevel();
+        assertArrayEquals(snapshot(fresh), snapshot(engine));
+    }
+
+    /*
+     * Return everything about the engine, as saved in a snapshot
+     */
+    private byte[] snapshot(GameEngine engine) {
+        ByteBuffer buffer = ByteBuffer.allocate(engine.getSnapshotSize());
+        engine.writeSnapshot(buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
@@ -0,0 +1,180 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Closes random wall lines across a board and, after each one, checks the regions,
+ * areas and ball counts a RegionMap keeps against a plain flood of the board, and that
+ * revealing a region and the score agree with counting every square.
+ */
+public class RegionMapTest {
+
+    private static final int ROWS = 50;
+    private static final int COLUMNS = 30;
+    private static final int BALLS = 40;
+
+    @Test
+    public void regionsMatchAFullFlood() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            Board board = new Board(ROWS, COLUMNS);
+            RegionMap regions = new RegionMap(board);
+            int[] balls = new int[BALLS];
+            for (int i = 0; i < BALLS; i++) {
+                balls[i] = random.nextInt(board.getSize());
+                regions.addBall(balls[i]);
+            }
+            check(board, regions, balls);
+
+            for (int line = 0; line < 60 && regions.getOpenSquares() > 0; line++) {
+                closeLine(board, regions, random);
+                regions.clearChanged();
+                check(board, regions, balls);
+
+                // move a few balls on, like the engine does when a center changes square
+                for (int k = 0; k < 5; k++) {
+                    int i = random.nextInt(BALLS);
+                    int to = random.nextInt(board.getSize());
+                    regions.moveBall(balls[i], to);
+                    balls[i] = to;
+                }
+                check(board, regions, balls);
+
+                if (line % 4 == 3) {
+                    revealRandomRegion(board, regions, random);
+                    check(board, regions, balls);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void scoreCountsEveryClosedSquare() {
+        GameEngine engine = new GameEngine(new BoardLayout(1080, 2200, 300, 20), false, 7);
+        Board board = engine.getBoard();
+        for (int row = 0; row < board.getRows(); row += 3) {
+            engine.closeSquare(row, 10);
+            assertEquals(board.getSize() - board.count(Board.OPEN), engine.getScore());
+        }
+    }
+
+    /*
+     * Close a straight line of squares from a random square in a random direction,
+     * stopping at the edge of the board
+     */
+    private void closeLine(Board board, RegionMap regions, Random random) {
+        int row = random.nextInt(ROWS);
+        int column = random.nextInt(COLUMNS);
+        boolean horizontal = random.nextBoolean();
+        int step = random.nextBoolean() ? 1 : -1;
+        int length = 1 + random.nextInt(Math.max(ROWS, COLUMNS));
+        for (int k = 0; k < length && board.isOnBoard(row, column); k++) {
+            regions.close(row, column);
+            if (horizontal) {
+                column += step;
+            } else {
+                row += step;
+            }
+        }
+    }
+
+    /*
+     * Reveal the region of a random open square, if there is one, and check it
+     * reveals exactly the squares a flood from there finds
+     */
+    private void revealRandomRegion(Board board, RegionMap regions, Random random) {
+        int open = regions.getOpenSquares();
+        if (open == 0) {
+            return;
+        }
+        int start = random.nextInt(board.getSize());
+        while (!board.isOpen(start)) {
+            start = (start + 1) % board.getSize();
+        }
+        int size = floodFrom(board, start, new int[board.getSize()], 1, null, null);
+        assertEquals(size, regions.reveal(regions.getRegion(start)));
+        assertEquals(open - size, regions.getOpenSquares());
+        assertEquals(Board.REVEALED, board.get(start));
+    }
+
+    /*
+     * Flood every group of open squares and check the RegionMap agrees on which
+     * squares are together, how big each group is and how many balls are in it
+     */
+    private void check(Board board, RegionMap regions, int[] balls) {
+        int[] group = new int[board.getSize()];
+        int[] ballsAt = new int[board.getSize()];
+        for (int ball : balls) {
+            ballsAt[ball]++;
+        }
+
+        int groups = 0;
+        int open = 0;
+        boolean[] idUsed = new boolean[board.getSize() + 1];
+        int[] ballCount = new int[1];
+        for (int square = 0; square < board.getSize(); square++) {
+            if (!board.isOpen(square)) {
+                assertEquals(0, regions.getRegion(square));
+                continue;
+            }
+            if (group[square] != 0) {
+                continue;
+            }
+            groups++;
+            int id = regions.getRegion(square);
+            assertTrue(id > 0);
+            assertFalse("two groups share region " + id, idUsed[id]);
+            idUsed[id] = true;
+
+            ballCount[0] = 0;
+            int size = floodFrom(board, square, group, groups, ballsAt, ballCount);
+            for (int other = 0; other < board.getSize(); other++) {
+                if (group[other] == groups) {
+                    assertEquals(id, regions.getRegion(other));
+                }
+            }
+            assertEquals(size, regions.getArea(id));
+            assertEquals(ballCount[0], regions.getBallCount(id));
+            open += size;
+        }
+        assertEquals(open, regions.getOpenSquares());
+        assertEquals(board.count(Board.OPEN), regions.getOpenSquares());
+    }
+
+    /*
+     * Mark every open square joined to start, above, below or beside, with the given
+     * group and return how many there are. Adds up the balls in them if ballsAt is
+     * given.
+     */
+    private int floodFrom(Board board, int start, int[] group, int mark, int[] ballsAt,
+                          int[] ballCount) {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        group[start] = mark;
+        queue.add(start);
+        int size = 0;
+        while (!queue.isEmpty()) {
+            int square = queue.poll();
+            size++;
+            if (ballsAt != null) {
+                ballCount[0] += ballsAt[square];
+            }
+            int row = square / COLUMNS;
+            int column = square % COLUMNS;
+            int[][] neighbours = {{row - 1, column}, {row + 1, column},
+                    {row, column - 1}, {row, column + 1}};
+            for (int[] n : neighbours) {
+                if (board.isOnBoard(n[0], n[1]) && board.isOpen(n[0], n[1])
+                        && group[board.indexOf(n[0], n[1])] != mark) {
+                    group[board.indexOf(n[0], n[1])] = mark;
+                    queue.add(board.indexOf(n[0], n[1]));
+                }
+            }
+        }
+        return size;
+    }
+}
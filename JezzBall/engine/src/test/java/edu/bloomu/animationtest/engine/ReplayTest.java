@@ -0,0 +1,92 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays a session with random walls, then checks the Replay it recorded plays back to
+ * exactly the same state after a round trip through its file format.
+ */
+public class ReplayTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+
+    @Test
+    public void replayEndsInTheSameState() throws IOException {
+        GameEngine engine = new GameEngine(LAYOUT, false, 1234);
+        Random touches = new Random(99);
+        for (int tick = 0; tick < 20000; tick++) {
+            if (engine.isGameOver()) {
+                if (engine.isBeatLevel()) {
+                    engine.nextLevel();
+                } else {
+                    engine.newGame();
+                }
+            }
+            if (tick % 45 == 0) {
+                engine.interpretTouchEvent(swipe(touches));
+            }
+            engine.tick();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.getReplay().write(out);
+        Replay replay = Replay.read(new ByteArrayInputStream(out.toByteArray()));
+        GameEngine played = ReplayRunner.play(replay);
+
+        assertEquals(20000, replay.getTicks());
+        assertEquals(engine.getLevel(), played.getLevel());
+        assertEquals(engine.getLives(), played.getLives());
+        assertEquals(engine.getScoreAsPercentage(), played.getScoreAsPercentage());
+        assertEquals(engine.getBalls().size(), played.getBalls().size());
+        for (int i = 0; i < engine.getBalls().size(); i++) {
+            assertEquals(engine.getBalls().get(i).getX(), played.getBalls().get(i).getX(), 0);
+            assertEquals(engine.getBalls().get(i).getY(), played.getBalls().get(i).getY(), 0);
+        }
+    }
+
+    @Test
+    public void switchingModeIsReplayed() throws IOException {
+        GameEngine engine = new GameEngine(LAYOUT, false, 1234);
+        for (int tick = 0; tick < 500; tick++) {
+            engine.tick();
+        }
+        engine.newGame(true);
+        for (int tick = 0; tick < 500; tick++) {
+            engine.tick();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.getReplay().write(out);
+        Replay replay = Replay.read(new ByteArrayInputStream(out.toByteArray()));
+        GameEngine played = ReplayRunner.play(replay);
+
+        assertFalse(replay.isChaosMode());
+        assertTrue(played.isChaosMode());
+        assertEquals(engine.getBalls().size(), played.getBalls().size());
+        for (int i = 0; i < engine.getBalls().size(); i++) {
+            assertEquals(engine.getBalls().get(i).getX(), played.getBalls().get(i).getX(), 0);
+            assertEquals(engine.getBalls().get(i).getY(), played.getBalls().get(i).getY(), 0);
+        }
+    }
+
+    /*
+     * A straight swipe across the board, either horizontal or vertical
+     */
+    private Gesture swipe(Random random) {
+        Gesture gesture = new Gesture();
+        float x = random.nextFloat() * 1000;
+        float y = 300 + random.nextFloat() * 1800;
+        boolean horizontal = random.nextBoolean();
+        for (int i = 0; i < GameEngine.WALL_TOUCH_INTENTION + 5; i++) {
+            gesture.add(horizontal ? x + i * 5 : x, horizontal ? y : y + i * 5);
+        }
+        return gesture;
+    }
+}
@@ -0,0 +1,33 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the SimulationFarm's numbers only depend on its seed, which they can't if the
+ * engines playing side by side share any state.
+ */
+public class SimulationFarmTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+
+    @Test
+    public void resultsDoNotDependOnThreads() throws InterruptedException {
+        LevelStats[] alone = new SimulationFarm(LAYOUT, false,
+                SimulationFarm.Policy.CAUTIOUS, 1).run(2, 40, 11);
+        LevelStats[] shared = new SimulationFarm(LAYOUT, false,
+                SimulationFarm.Policy.CAUTIOUS, 3).run(2, 40, 11);
+
+        assertEquals(2, alone.length);
+        for (int i = 0; i < alone.length; i++) {
+            assertEquals(i + 1, shared[i].getLevel());
+            assertEquals(40, shared[i].getGames());
+            assertEquals(alone[i].getWins(), shared[i].getWins());
+            assertEquals(alone[i].getAverageTicksToClear(),
+                    shared[i].getAverageTicksToClear(), 0);
+            assertEquals(alone[i].getAverageLivesLost(),
+                    shared[i].getAverageLivesLost(), 0);
+        }
+    }
+}
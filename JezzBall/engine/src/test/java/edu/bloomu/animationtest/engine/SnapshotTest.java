@@ -0,0 +1,71 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Saves a game part way through, with a pair of walls still growing, and checks the
+ * restored engine plays on exactly like the original.
+ */
+public class SnapshotTest {
+
+    private static final BoardLayout LAYOUT = new BoardLayout(1080, 2200, 300, 20);
+
+    @Test
+    public void restoredGameCarriesOnTheSame() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 42);
+        engine.addBalls(4);
+        for (int tick = 0; tick < 300; tick++) {
+            engine.tick();
+        }
+        engine.interpretTouchEvent(swipe(540, 1200));
+        for (int tick = 0; tick < 20; tick++) {
+            engine.tick();
+        }
+        assertFalse(engine.getWalls().isEmpty());
+
+        ByteBuffer buffer = ByteBuffer.allocate(engine.getSnapshotSize());
+        engine.writeSnapshot(buffer);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        GameEngine restored = GameEngine.readSnapshot(LAYOUT, false, buffer);
+        assertNotNull(restored);
+
+        for (int tick = 0; tick < 2000; tick++) {
+            engine.tick();
+            restored.tick();
+        }
+        assertEquals(engine.getLives(), restored.getLives());
+        assertEquals(engine.getScoreAsPercentage(), restored.getScoreAsPercentage());
+        assertEquals(engine.getBalls().size(), restored.getBalls().size());
+        for (int i = 0; i < engine.getBalls().size(); i++) {
+            assertEquals(engine.getBalls().get(i).getX(), restored.getBalls().get(i).getX(), 0);
+            assertEquals(engine.getBalls().get(i).getY(), restored.getBalls().get(i).getY(), 0);
+        }
+    }
+
+    @Test
+    public void snapshotFromAnotherLayoutIsIgnored() {
+        GameEngine engine = new GameEngine(LAYOUT, false, 42);
+        ByteBuffer buffer = ByteBuffer.allocate(engine.getSnapshotSize());
+        engine.writeSnapshot(buffer);
+        buffer.flip();
+
+        assertNull(GameEngine.readSnapshot(new BoardLayout(720, 1280, 300, 20), false,
+                buffer));
+    }
+
+    /*
+     * A horizontal swipe starting at the given point
+     */
+    private Gesture swipe(float x, float y) {
+        Gesture gesture = new Gesture();
+        for (int i = 0; i < GameEngine.WALL_TOUCH_INTENTION + 5; i++) {
+            gesture.add(x + i * 5, y);
+        }
+        return gesture;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.bloomu.animationtest.engine;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the pairs a SpatialHash finds against trying every pair of balls, for balls
+ * scattered at random.
+ */
+public class SpatialHashTest {
+
+    private static final float CELL = 120;
+    private static final float TOP = 300;
+    private static final float WIDTH = 1080;
+    private static final float HEIGHT = 1900;
+
+    @Test
+    public void findsEveryPairWithinACell() {
+        Random random = new Random(11);
+        SpatialHash hash = new SpatialHash(CELL, 0, TOP, WIDTH, HEIGHT);
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(300);
+            double[] x = new double[count];
+            double[] y = new double[count];
+            for (int i = 0; i < count; i++) {
+                // a few land just off the edges, which go in the edge cells
+                x[i] = -20 + random.nextDouble() * (WIDTH + 40);
+                y[i] = TOP - 20 + random.nextDouble() * (HEIGHT + 40);
+            }
+
+            hash.rebuild(x, y, count);
+            int pairCount = hash.findPairs(count);
+            int[] pairs = hash.getPairs();
+            HashSet<Long> found = new HashSet<>();
+            for (int k = 0; k < pairCount; k++) {
+                int a = pairs[2 * k];
+                int b = pairs[2 * k + 1];
+                assertTrue(a < b);
+                assertTrue("pair reported twice", found.add((long) a * count + b));
+            }
+
+            // anything close enough to touch has to be there
+            for (int a = 0; a < count; a++) {
+                for (int b = a + 1; b < count; b++) {
+                    double dx = x[a] - x[b];
+                    double dy = y[a] - y[b];
+                    if (dx * dx + dy * dy <= CELL * CELL) {
+                        assertTrue("missed " + a + ", " + b,
+                                found.contains((long) a * count + b));
+                    }
+                }
+            }
+        }
+    }
+}